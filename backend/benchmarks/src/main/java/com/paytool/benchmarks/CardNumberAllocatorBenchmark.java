@@ -0,0 +1,53 @@
+package com.paytool.benchmarks;
+
+import com.paytool.service.CardNumberAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// CardNumberAllocator.next() from many threads at once. With a block of 10 every tenth number
+// reserves a new block in its own transaction while the other threads wait on the refill lock;
+// with the default 1000 nearly every call is a getAndIncrement on the current block.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class CardNumberAllocatorBenchmark {
+    @Param({"10", "1000"})
+    public int blockSize;
+
+    private PayToolContext context;
+    private CardNumberAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new PayToolContext("paytool.cards.block-size=" + blockSize);
+        allocator = context.bean(CardNumberAllocator.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String next() {
+        return allocator.next();
+    }
+}
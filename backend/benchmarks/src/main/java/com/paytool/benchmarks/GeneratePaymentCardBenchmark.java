@@ -0,0 +1,58 @@
+package com.paytool.benchmarks;
+
+import com.paytool.model.PaymentCard;
+import com.paytool.model.User;
+import com.paytool.service.GroupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// generatePaymentCard end to end: the COMPLETED transition, a card number from the block
+// allocator and the card insert, each time for a fresh group whose members all agreed.
+// Preparing the group happens per invocation and is not measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratePaymentCardBenchmark {
+    private PayToolContext context;
+    private GroupService groupService;
+    private List<User> members;
+    private Long groupId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new PayToolContext();
+        groupService = context.bean(GroupService.class);
+        members = context.createUsers(4);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareGroup() throws Exception {
+        groupId = context.createReadyGroup(members).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PaymentCard generatePaymentCard() {
+        return groupService.generatePaymentCard(groupId);
+    }
+}
@@ -0,0 +1,123 @@
+package com.paytool.benchmarks;
+
+import com.paytool.model.Group;
+import com.paytool.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The dashboard's queries executed in process, without HTTP. With documentCache=miss every
+// request carries a unique comment, so it is parsed and validated again; the difference to
+// "hit" is the per-request CPU the parsed-document cache saves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQlExecutionBenchmark {
+    private static final String USER_GROUPS = """
+        query UserGroups($userId: ID!) {
+          userGroups(userId: $userId) {
+            id description totalAmount status
+            leader { id name username }
+            members { id amount status user { id name username } }
+          }
+        }""";
+
+    private static final String GROUP = """
+        query Group($id: ID!) {
+          group(id: $id) {
+            id description totalAmount status
+            leader { id name username }
+            members { id amount status user { id name username } }
+          }
+        }""";
+
+    private static final String TRANSACTION_HISTORY = """
+        query History($userId: ID!) {
+          userTransactionsConnection(userId: $userId, first: 20) {
+            edges { cursor node { id amount createdAt receiver { id name } } }
+            pageInfo { hasNextPage endCursor }
+          }
+        }""";
+
+    @Param({"hit", "miss"})
+    public String documentCache;
+
+    private PayToolContext context;
+    private ExecutionGraphQlService graphQlService;
+    private final AtomicLong requestIds = new AtomicLong();
+    private String userId;
+    private String groupId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new PayToolContext();
+        graphQlService = context.bean(ExecutionGraphQlService.class);
+
+        List<User> users = context.createUsers(8);
+        for (int i = 0; i < 5; i++) {
+            context.createReadyGroup(users);
+        }
+        Group group = context.createReadyGroup(users);
+        context.createTransactions(users.get(0), users.get(1), 50);
+        userId = users.get(0).getId().toString();
+        groupId = group.getId().toString();
+
+        // Fail fast instead of timing error responses
+        execute(USER_GROUPS, Map.of("userId", userId));
+        execute(GROUP, Map.of("id", groupId));
+        execute(TRANSACTION_HISTORY, Map.of("userId", userId));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse userGroups() {
+        return execute(USER_GROUPS, Map.of("userId", userId));
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse group() {
+        return execute(GROUP, Map.of("id", groupId));
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse transactionHistory() {
+        return execute(TRANSACTION_HISTORY, Map.of("userId", userId));
+    }
+
+    private ExecutionGraphQlResponse execute(String document, Map<String, Object> variables) {
+        String id = Long.toString(requestIds.incrementAndGet());
+        String text = "miss".equals(documentCache) ? document + "\n# " + id : document;
+        ExecutionGraphQlResponse response = graphQlService
+            .execute(new DefaultExecutionGraphQlRequest(text, null, variables, null, id, null))
+            .block();
+        if (response == null || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException("GraphQL request failed: " + (response == null ? null : response.getErrors()));
+        }
+        return response;
+    }
+}
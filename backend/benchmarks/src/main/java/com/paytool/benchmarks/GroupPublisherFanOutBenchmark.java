@@ -0,0 +1,73 @@
+package com.paytool.benchmarks;
+
+import com.paytool.model.Group;
+import com.paytool.model.GroupStatus;
+import com.paytool.service.GroupPublisher;
+import com.paytool.service.LocalGroupEventBus;
+import com.paytool.service.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// One groupStatusChanged publish delivered to every subscriber of the group. Delivery is
+// synchronous on the publishing thread, so the time per operation covers the whole fan-out.
+// No snapshot or delta subscribers exist, so the publisher never touches the database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupPublisherFanOutBenchmark {
+    private static final String GROUP_ID = "1";
+
+    @Param({"1", "100", "10000"})
+    public int subscribers;
+
+    private GroupPublisher publisher;
+    private Group group;
+    private final LongAdder delivered = new LongAdder();
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        publisher = new GroupPublisher(null, new LocalGroupEventBus(), null, null, null,
+            new SimpleMeterRegistry(), 256, OverflowPolicy.LATEST, OverflowPolicy.DROP_OLDEST, 64, 10_000);
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(publisher.getGroupStatusFlux(GROUP_ID).subscribe(g -> delivered.increment()));
+        }
+        group = new Group();
+        group.setId(1L);
+        group.setStatus(GroupStatus.ACTIVE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+        if (delivered.sum() == 0) {
+            throw new IllegalStateException("No updates were delivered");
+        }
+    }
+
+    @Benchmark
+    public void publishGroupStatus() {
+        publisher.publishGroupStatus(GROUP_ID, group);
+    }
+}
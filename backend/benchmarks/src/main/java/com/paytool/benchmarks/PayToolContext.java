@@ -0,0 +1,101 @@
+package com.paytool.benchmarks;
+
+import com.paytool.PayToolApplication;
+import com.paytool.dto.CreateGroupInput;
+import com.paytool.dto.CreateTransactionInput;
+import com.paytool.graphql.MutationResolver;
+import com.paytool.model.Group;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.repository.UserRepository;
+import com.paytool.service.GroupService;
+import com.paytool.service.TransactionService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// The whole application on an in-memory H2 database in MySQL mode, with background jobs and
+// outside services left idle so only the measured call does work.
+final class PayToolContext implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+
+    PayToolContext(String... overrides) {
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:h2:mem:paytool-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.devtools.restart.enabled=false",
+            "--server.port=0",
+            "--management.server.port=-1",
+            "--logging.level.com.paytool=WARN",
+            "--logging.level.org.springframework.security=WARN",
+            "--paytool.events.bus=local"));
+        for (String override : overrides) {
+            args.add("--" + override);
+        }
+        // Arguments, because default properties lose to application.yml
+        context = new SpringApplicationBuilder(PayToolApplication.class).run(args.toArray(new String[0]));
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    List<User> createUsers(int count) {
+        UserRepository users = bean(UserRepository.class);
+        List<User> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String handle = "bench-" + UUID.randomUUID();
+            User user = new User();
+            user.setUsername(handle);
+            user.setEmail(handle + "@example.com");
+            user.setName("Bench " + i);
+            user.setPassword("not-a-hash");
+            created.add(users.save(user));
+        }
+        return created;
+    }
+
+    // A group where everyone joined and agreed, so a payment card can be issued for it
+    Group createReadyGroup(List<User> members) throws Exception {
+        CreateGroupInput input = new CreateGroupInput();
+        input.setLeaderId(members.get(0).getId());
+        input.setTotalAmount(100.0 * members.size());
+        input.setTotalPeople(members.size());
+        input.setDescription("Benchmark group");
+        Group group = bean(MutationResolver.class).createGroup(input).call();
+
+        GroupService groupService = bean(GroupService.class);
+        for (User member : members.subList(1, members.size())) {
+            groupService.joinGroup(group.getId(), member.getId());
+            groupService.updateMemberStatus(group.getId(), member.getId(), MemberStatus.AGREED);
+        }
+        return group;
+    }
+
+    void createTransactions(User sender, User receiver, int count) {
+        TransactionService transactions = bean(TransactionService.class);
+        for (int i = 0; i < count; i++) {
+            CreateTransactionInput input = new CreateTransactionInput();
+            input.setSenderId(sender.getId().toString());
+            input.setReceiverId(receiver.getId().toString());
+            input.setAmount(BigDecimal.valueOf(10 + i));
+            input.setDescription("Benchmark transaction " + i);
+            transactions.createTransaction(input);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
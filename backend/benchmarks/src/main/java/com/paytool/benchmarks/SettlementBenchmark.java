@@ -0,0 +1,55 @@
+package com.paytool.benchmarks;
+
+import com.paytool.service.SettlementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The planning half of settleUp, through SettlementService.settle. Balances are random but sum
+// to zero, the same shape settleUp builds after reading the ledger.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SettlementBenchmark {
+    @Param({"10", "100", "1000"})
+    public int users;
+
+    private long[] ids;
+    private long[] balances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[users];
+        balances = new long[users];
+        long total = 0;
+        for (int i = 0; i < users; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = 0; i < users - 1; i++) {
+            balances[i] = random.nextLong(-100_000, 100_000);
+            total += balances[i];
+        }
+        balances[users - 1] = -total;
+    }
+
+    @Benchmark
+    public int settle() {
+        return SettlementService.settle(ids, balances).size();
+    }
+}
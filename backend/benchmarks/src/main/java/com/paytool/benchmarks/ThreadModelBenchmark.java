@@ -0,0 +1,88 @@
+package com.paytool.benchmarks;
+
+import com.paytool.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Requests per second from 64 concurrent callers, with the Callable data fetchers running on
+// the 10-thread platform pool or on virtual threads (spring.threads.virtual.enabled). H2
+// answers in process, so little time goes to waiting here; against a networked database the
+// blocking that virtual threads take off the pool is larger. Change the caller count with -t.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class ThreadModelBenchmark {
+    private static final String DASHBOARD = """
+        query Dashboard($userId: ID!) {
+          userGroups(userId: $userId) {
+            id description totalAmount status
+            leader { id name }
+            members { id amount status user { id name } }
+          }
+          userBalance(userId: $userId) { net }
+        }""";
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private PayToolContext context;
+    private ExecutionGraphQlService graphQlService;
+    private final AtomicLong requestIds = new AtomicLong();
+    private String userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new PayToolContext("spring.threads.virtual.enabled=" + "virtual".equals(threads));
+        graphQlService = context.bean(ExecutionGraphQlService.class);
+
+        List<User> users = context.createUsers(6);
+        for (int i = 0; i < 5; i++) {
+            context.createReadyGroup(users);
+        }
+        userId = users.get(0).getId().toString();
+
+        // Fail fast instead of timing error responses
+        dashboard();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse dashboard() {
+        String id = Long.toString(requestIds.incrementAndGet());
+        ExecutionGraphQlResponse response = graphQlService
+            .execute(new DefaultExecutionGraphQlRequest(DASHBOARD, null, Map.of("userId", userId), null, id, null))
+            .block();
+        if (response == null || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException("GraphQL request failed: " + (response == null ? null : response.getErrors()));
+        }
+        return response;
+    }
+}
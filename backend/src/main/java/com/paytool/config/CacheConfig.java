@@ -0,0 +1,57 @@
+package com.paytool.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Caffeine-backed regions for the Hibernate second-level cache. Each region is bounded by
+// paytool.cache.<region>.max-size and expires entries ttl after they were written; a
+// max-size of 0 effectively turns a region off. Every application context gets its own cache
+// manager, so contexts sharing a JVM (tests, devtools restarts) never see each other's rows.
+@Configuration
+public class CacheConfig {
+    // Must match the region names in the @Cache annotations on the entities
+    private static final List<String> REGIONS = List.of("users", "groups", "group-members", "group-member-lists");
+
+    @Bean
+    public CacheManager entityCacheManager(Environment environment, MeterRegistry meterRegistry) {
+        CacheManager cacheManager = Caching.getCachingProvider(
+            "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider")
+            .getCacheManager(URI.create("paytool:entity-cache:" + UUID.randomUUID()), CacheConfig.class.getClassLoader());
+
+        for (String region : REGIONS) {
+            long maxSize = environment.getProperty("paytool.cache." + region + ".max-size", Long.class, 10000L);
+            Duration ttl = environment.getProperty("paytool.cache." + region + ".ttl", Duration.class, Duration.ofMinutes(10));
+
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStatisticsEnabled(true);
+
+            Cache<Object, Object> cache = cacheManager.createCache(region, configuration);
+            JCacheMetrics.monitor(meterRegistry, cache, Tags.of("region", region));
+        }
+        return cacheManager;
+    }
+
+    // Hibernate uses the regions created above instead of building its own cache manager
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+}
@@ -1,5 +1,9 @@
 package com.paytool.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paytool.graphql.PersistedDocumentProvider;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
@@ -23,4 +27,18 @@ public class GraphQLConfig {
                 })
             );
     }
-} 
\ No newline at end of file
+
+    // Parsed documents and persisted queries are looked up before graphql-java parses anything
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedDocumentCustomizer(PersistedDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
+
+    @Bean
+    public FilterRegistrationBean<PersistedQueryFilter> persistedQueryFilter(ObjectMapper objectMapper) {
+        FilterRegistrationBean<PersistedQueryFilter> registration =
+            new FilterRegistrationBean<>(new PersistedQueryFilter(objectMapper));
+        registration.addUrlPatterns("/graphql");
+        return registration;
+    }
+}
@@ -0,0 +1,147 @@
+package com.paytool.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+// Spring GraphQL answers 400 to a request without a "query" before any document provider runs,
+// and that is exactly how Apollo clients send the first, hash-only request of an automatic
+// persisted query. Such a body gets the PersistedQueryMarker placeholder, which
+// PersistedDocumentProvider reads as "look the hash up". Only bodies that mention persistedQuery
+// are parsed here; everything else is passed on untouched.
+public class PersistedQueryFilter extends OncePerRequestFilter {
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public PersistedQueryFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!"POST".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        filterChain.doFilter(new BodyRequest(request, withMarker(body)), response);
+    }
+
+    private byte[] withMarker(byte[] body) {
+        if (!new String(body, StandardCharsets.UTF_8).contains("persistedQuery")) {
+            return body;
+        }
+        Map<String, Object> json;
+        try {
+            json = objectMapper.readValue(body, JSON_OBJECT);
+        } catch (IOException e) {
+            // Left for Spring GraphQL to reject with its usual error
+            return body;
+        }
+        if (json == null
+                || !(json.get("extensions") instanceof Map<?, ?> extensions)
+                || !(extensions.get("persistedQuery") instanceof Map<?, ?>)
+                || json.get("query") instanceof String query && !query.isBlank()) {
+            return body;
+        }
+        json.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+        try {
+            return objectMapper.writeValueAsBytes(json);
+        } catch (IOException e) {
+            return body;
+        }
+    }
+
+    // The request with its body already read, replayed from memory
+    private static final class BodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) ? String.valueOf(body.length) : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                ? Collections.enumeration(List.of(String.valueOf(body.length)))
+                : super.getHeaders(name);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.paytool.config;
+
+import com.paytool.graphql.RepeatedStatementDetector;
+import com.paytool.graphql.RequestTraceAccessor;
+import com.paytool.graphql.RequestTraceFilter;
+import com.paytool.graphql.RequestTraceInstrumentation;
+import io.micrometer.context.ContextRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Per-request execution traces, returned in extensions.trace when a request sends
+// "X-PayTool-Trace: true". Only wired when the deployment enables tracing, because the
+// header is honoured for any caller.
+@Configuration
+@ConditionalOnProperty(name = "paytool.graphql.trace.enabled", havingValue = "true")
+public class RequestTraceConfig {
+
+    public RequestTraceConfig() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(new RequestTraceAccessor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestTraceFilter> requestTraceFilter() {
+        FilterRegistrationBean<RequestTraceFilter> registration = new FilterRegistrationBean<>(new RequestTraceFilter());
+        registration.addUrlPatterns("/graphql");
+        return registration;
+    }
+
+    @Bean
+    public RequestTraceInstrumentation requestTraceInstrumentation(
+            @Value("${paytool.graphql.trace.repeat-threshold:3}") int repeatThreshold) {
+        return new RequestTraceInstrumentation(new RepeatedStatementDetector(repeatThreshold));
+    }
+
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
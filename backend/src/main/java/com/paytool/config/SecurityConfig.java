@@ -1,5 +1,10 @@
 package com.paytool.config;
 
+import com.paytool.graphql.RequestTrace;
+import com.paytool.security.JwtAuthenticationFilter;
+import com.paytool.security.JwtTokenProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,11 +13,14 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 
 import java.util.Arrays;
 import java.util.List;
@@ -22,7 +30,7 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenProvider jwtTokenProvider) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -47,14 +55,22 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/graphql").permitAll()
                 .requestMatchers(HttpMethod.POST, "/graphql").permitAll()
                 .requestMatchers(HttpMethod.POST, "/graphql/**").permitAll()
+                // Probes need no token; metrics and prometheus are scraped with a bearer token
+                .requestMatchers(EndpointRequest.to("health", "info")).permitAll()
                 .anyRequest().authenticated()
             )
+            // A scraper without a token gets a 401, not the OAuth login redirect
+            .exceptionHandling(exceptions -> exceptions
+                .defaultAuthenticationEntryPointFor(
+                    new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED), EndpointRequest.toAnyEndpoint()))
             .oauth2Login(oauth2 -> oauth2
                 .authorizationEndpoint(authorization -> authorization
                     .baseUri("/oauth2/authorize"))
                 .redirectionEndpoint(redirection -> redirection
                     .baseUri("/login/oauth2/code/*"))
             )
+            // Built here rather than as a bean, so it only runs inside the security chain
+            .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider), UsernamePasswordAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions().disable()); // 允许 H2 控制台在 iframe 中显示
         
         return http.build();
@@ -73,7 +89,8 @@ public class SecurityConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            RequestTrace.HEADER
         ));
         configuration.setExposedHeaders(Arrays.asList(
             "Access-Control-Allow-Origin",
@@ -87,8 +104,9 @@ public class SecurityConfig {
         return source;
     }
 
+    // Raising the strength makes older hashes eligible for rehash on the next login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${paytool.passwords.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 } 
\ No newline at end of file
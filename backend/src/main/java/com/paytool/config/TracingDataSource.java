@@ -0,0 +1,81 @@
+package com.paytool.config;
+
+import com.paytool.graphql.RequestTrace;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Reports every executed statement to the current request's trace. Connections and statements
+// are wrapped in JDK proxies; the only extra work for untraced requests is a thread-local lookup.
+class TracingDataSource extends DelegatingDataSource {
+
+    TracingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+            TracingDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof CallableStatement statement) {
+                    return wrapStatement(statement, CallableStatement.class, (String) args[0]);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return wrapStatement(statement, PreparedStatement.class, (String) args[0]);
+                }
+                if (result instanceof Statement statement) {
+                    return wrapStatement(statement, Statement.class, null);
+                }
+                return result;
+            });
+    }
+
+    // Prepared statements carry their SQL from prepareStatement; plain ones pass it to execute
+    private static Object wrapStatement(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        return Proxy.newProxyInstance(
+            TracingDataSource.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+                RequestTrace trace = RequestTrace.current();
+                if (trace == null || !method.getName().startsWith("execute")) {
+                    return invoke(statement, method, args);
+                }
+                String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "<batch>";
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    trace.recordStatement(sql, System.nanoTime() - start);
+                }
+            });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.paytool.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// With virtual threads Tomcat no longer caps concurrency at its worker pool, so thousands of
+// GraphQL requests could queue on the JDBC pool and fail with connection timeouts. This limits
+// in-flight /graphql requests to the Hikari pool size instead (or an explicit limit).
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> graphQlConcurrencyLimitFilter(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${paytool.virtual-threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${paytool.virtual-threads.admission-timeout-ms:1000}") long admissionTimeoutMillis) {
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : poolSize(dataSource);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, admissionTimeoutMillis);
+
+        Gauge.builder("paytool.requests.permits", filter, ConcurrencyLimitFilter::availablePermits)
+            .description("Free slots for in-flight GraphQL requests")
+            .register(meterRegistry);
+        Gauge.builder("paytool.requests.waiting", filter, ConcurrencyLimitFilter::queueLength)
+            .description("Requests waiting for a GraphQL slot")
+            .register(meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/graphql");
+        return registration;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        return hikari != null ? hikari.getMaximumPoolSize() : 10;
+    }
+}
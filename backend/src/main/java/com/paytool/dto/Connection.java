@@ -0,0 +1,29 @@
+package com.paytool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class Connection<T> {
+    private List<Edge<T>> edges;
+    private PageInfo pageInfo;
+
+    // rows is expected to hold up to limit + 1 entries; the extra row only
+    // signals that another page exists and is not returned to the client.
+    public static <T> Connection<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        boolean hasNextPage = rows.size() > limit;
+        List<T> page = hasNextPage ? rows.subList(0, limit) : rows;
+
+        List<Edge<T>> edges = new ArrayList<>(page.size());
+        for (T row : page) {
+            edges.add(new Edge<>(cursorOf.apply(row), row));
+        }
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor();
+        return new Connection<>(edges, new PageInfo(hasNextPage, endCursor));
+    }
+}
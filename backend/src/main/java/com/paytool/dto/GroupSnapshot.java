@@ -0,0 +1,23 @@
+package com.paytool.dto;
+
+import com.paytool.model.GroupStatus;
+import lombok.Value;
+import lombok.With;
+
+import java.util.List;
+
+// Immutable group state for subscriptions; built once per change and shared by every subscriber
+@Value
+public class GroupSnapshot {
+    Long id;
+    @With
+    long version;
+    GroupStatus status;
+    String description;
+    Double totalAmount;
+    Integer totalPeople;
+    int memberCount;
+    int agreedCount;
+    UserSummary leader;
+    List<MemberSnapshot> members;
+}
@@ -0,0 +1,19 @@
+package com.paytool.dto;
+
+import com.paytool.model.MemberStatus;
+import lombok.Value;
+import lombok.With;
+
+// A single member change plus the group counts after it, so clients can patch local state
+@Value
+public class MemberDelta {
+    Long id;
+    Long groupId;
+    @With
+    long version;
+    Long userId;
+    MemberStatus status;
+    Double amount;
+    int memberCount;
+    int agreedCount;
+}
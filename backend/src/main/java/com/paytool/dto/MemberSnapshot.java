@@ -0,0 +1,12 @@
+package com.paytool.dto;
+
+import com.paytool.model.MemberStatus;
+import lombok.Value;
+
+@Value
+public class MemberSnapshot {
+    Long id;
+    Double amount;
+    MemberStatus status;
+    UserSummary user;
+}
@@ -0,0 +1,11 @@
+package com.paytool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PageInfo {
+    private Boolean hasNextPage;
+    private String endCursor;
+}
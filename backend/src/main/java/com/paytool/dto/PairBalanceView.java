@@ -0,0 +1,13 @@
+package com.paytool.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+// A pair balance seen from one user: net is what they received from the counterparty minus what they sent
+@Value
+public class PairBalanceView {
+    Long userId;
+    Long counterpartyId;
+    BigDecimal net;
+}
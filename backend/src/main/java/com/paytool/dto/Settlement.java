@@ -0,0 +1,13 @@
+package com.paytool.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+// One transfer of a settleUp plan: fromUserId pays toUserId
+@Value
+public class Settlement {
+    Long fromUserId;
+    Long toUserId;
+    BigDecimal amount;
+}
@@ -0,0 +1,13 @@
+package com.paytool.dto;
+
+import lombok.Value;
+
+import java.util.Set;
+
+// The Transaction fields a query asked for, and the User fields under sender and receiver
+@Value
+public class TransactionSelection {
+    Set<String> fields;
+    Set<String> senderFields;
+    Set<String> receiverFields;
+}
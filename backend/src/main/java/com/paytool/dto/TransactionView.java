@@ -0,0 +1,38 @@
+package com.paytool.dto;
+
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Source object of the GraphQL Transaction type. sender and receiver are set when the
+// projection joined them; otherwise they are loaded in batches from senderId and receiverId.
+@Data
+public class TransactionView {
+    private Long id;
+    private BigDecimal amount;
+    private TransactionStatus status;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long senderId;
+    private Long receiverId;
+    private UserView sender;
+    private UserView receiver;
+
+    // Reads only the foreign keys of the associations, so lazy proxies stay uninitialized
+    public static TransactionView from(Transaction transaction) {
+        TransactionView view = new TransactionView();
+        view.setId(transaction.getId());
+        view.setAmount(transaction.getAmount());
+        view.setStatus(transaction.getStatus());
+        view.setDescription(transaction.getDescription());
+        view.setCreatedAt(transaction.getCreatedAt());
+        view.setUpdatedAt(transaction.getUpdatedAt());
+        view.setSenderId(transaction.getSender().getId());
+        view.setReceiverId(transaction.getReceiver().getId());
+        return view;
+    }
+}
@@ -0,0 +1,10 @@
+package com.paytool.dto;
+
+import lombok.Value;
+
+@Value
+public class UserSummary {
+    Long id;
+    String name;
+    String username;
+}
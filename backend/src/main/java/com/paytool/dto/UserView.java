@@ -0,0 +1,28 @@
+package com.paytool.dto;
+
+import com.paytool.model.User;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// GraphQL User read without the password hash; projection queries fill only the requested columns
+@Data
+public class UserView {
+    private Long id;
+    private String username;
+    private String email;
+    private String name;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static UserView from(User user) {
+        UserView view = new UserView();
+        view.setId(user.getId());
+        view.setUsername(user.getUsername());
+        view.setEmail(user.getEmail());
+        view.setName(user.getName());
+        view.setCreatedAt(user.getCreatedAt());
+        view.setUpdatedAt(user.getUpdatedAt());
+        return view;
+    }
+}
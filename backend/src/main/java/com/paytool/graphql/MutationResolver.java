@@ -3,6 +3,7 @@ package com.paytool.graphql;
 import com.paytool.dto.CreateGroupInput;
 import com.paytool.dto.CreateTransactionInput;
 import com.paytool.dto.CreateUserInput;
+import com.paytool.dto.TransactionView;
 import com.paytool.dto.UpdateUserInput;
 import com.paytool.model.*;
 import com.paytool.repository.GroupMemberRepository;
@@ -10,11 +11,17 @@ import com.paytool.repository.GroupRepository;
 import com.paytool.repository.PaymentCardRepository;
 import com.paytool.repository.TransactionRepository;
 import com.paytool.repository.UserRepository;
+import com.paytool.security.JwtTokenProvider;
 import com.paytool.service.GroupService;
+import com.paytool.service.PasswordHasher;
+import com.paytool.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -27,7 +34,14 @@ import com.paytool.exception.CustomException;
 
 import java.util.List;
 import java.util.UUID;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Blocking mutations return Callable and run on applicationTaskExecutor, like QueryResolver's
+// fetchers. The password mutations return CompletableFuture: their lookups and saves run on the
+// same executor and only the hashing on PasswordHasher's pool, which is sized for BCrypt alone.
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 public class MutationResolver {
@@ -36,9 +50,17 @@ public class MutationResolver {
     private final GroupMemberRepository groupMemberRepository;
     private final PaymentCardRepository paymentCardRepository;
     private final TransactionRepository transactionRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final GroupService groupService; // 新增的 GroupService
-    private final SubscriptionResolver subscriptionResolver;
+    private final TransactionService transactionService;
+    private final JwtTokenProvider jwtTokenProvider;
+
+    @Value("${paytool.passwords.rehash-on-login:true}")
+    private boolean rehashOnLogin;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
     @MutationMapping
     public String testMutation() {
@@ -46,51 +68,59 @@ public class MutationResolver {
     }
 
     @MutationMapping
-    public User createUser(@Argument("input") CreateUserInput input) {
-        if (userRepository.existsByUsername(input.getUsername()) || 
-            userRepository.existsByEmail(input.getEmail())) {
+    public CompletableFuture<User> createUser(@Argument("input") CreateUserInput input) {
+        return CompletableFuture.runAsync(() -> {
+            if (userRepository.existsByUsername(input.getUsername())
+                    || userRepository.existsByEmail(input.getEmail())) {
                 throw new CustomException("Username or email already exists");
-        }
-
-        User user = new User();
-        user.setUsername(input.getUsername());
-        user.setPassword(passwordEncoder.encode(input.getPassword()));
-        user.setEmail(input.getEmail());
-        user.setName(input.getName());
-
-        return userRepository.save(user);
+            }
+        }, taskExecutor)
+            .thenCompose(checked -> passwordHasher.encode(input.getPassword()))
+            .thenApplyAsync(hash -> {
+                User user = new User();
+                user.setUsername(input.getUsername());
+                user.setPassword(hash);
+                user.setEmail(input.getEmail());
+                user.setName(input.getName());
+                return userRepository.save(user);
+            }, taskExecutor);
     }
 
     @MutationMapping
-    public User updateUser(@Argument("id") String id, @Argument("input") UpdateUserInput input) {
-        User user = userRepository.findById(Long.parseLong(id))
-            .orElseThrow(() -> new CustomException("User not found"));
-
-        if (input.getEmail() != null) {
-            user.setEmail(input.getEmail());
-        }
-        if (input.getName() != null) {
-            user.setName(input.getName());
-        }
-        if (input.getPassword() != null) {
-            user.setPassword(passwordEncoder.encode(input.getPassword()));
-        }
-
-        return userRepository.save(user);
+    public CompletableFuture<User> updateUser(@Argument("id") String id, @Argument("input") UpdateUserInput input) {
+        return CompletableFuture.supplyAsync(() -> {
+            User user = userRepository.findById(Long.parseLong(id))
+                .orElseThrow(() -> new CustomException("User not found"));
+            if (input.getEmail() != null) {
+                user.setEmail(input.getEmail());
+            }
+            if (input.getName() != null) {
+                user.setName(input.getName());
+            }
+            return user;
+        }, taskExecutor)
+            .thenCompose(user -> input.getPassword() == null
+                ? CompletableFuture.completedFuture(user)
+                : passwordHasher.encode(input.getPassword()).thenApply(hash -> {
+                    user.setPassword(hash);
+                    return user;
+                }))
+            .thenApplyAsync(userRepository::save, taskExecutor);
     }
 
     @MutationMapping
-    public Group createGroup(@Argument("input") CreateGroupInput input) {
-        try {
-            System.out.println("Creating group with input: " + input);
+    public Callable<Group> createGroup(@Argument("input") CreateGroupInput input) {
+        return () -> saveGroup(input);
+    }
 
+    private Group saveGroup(CreateGroupInput input) {
+        try {
             if (input.getLeaderId() == null) {
                 throw new CustomException("Leader ID cannot be null");
             }
             double splitAmount = input.getTotalAmount() / input.getTotalPeople();
             User leader = userRepository.findById(input.getLeaderId())
                 .orElseThrow(() -> new CustomException("Leader not found with ID: " + input.getLeaderId()));
-            System.out.println("Found leader: " + leader.getUsername());
 
             Group group = new Group();
             group.setLeader(leader);
@@ -99,126 +129,80 @@ public class MutationResolver {
             group.setStatus(GroupStatus.PENDING);
             group.setQrCode(UUID.randomUUID().toString());
             group.setTotalPeople(input.getTotalPeople());
+            // The leader takes the first seat and has agreed
+            group.setJoinedCount(1);
+            group.setAgreedCount(1);
 
             Group savedGroup = groupRepository.save(group);
-            System.out.println("Created group with id: " + savedGroup.getId());
 
-            
             GroupMember leaderMember = new GroupMember();
             leaderMember.setGroup(savedGroup);
             leaderMember.setUser(leader);
             leaderMember.setAmount(splitAmount);
             leaderMember.setStatus(MemberStatus.AGREED);
 
-            GroupMember savedMember = groupMemberRepository.save(leaderMember);
-            System.out.println("Created leader member with id: " + savedMember.getId());
-
+            groupMemberRepository.save(leaderMember);
             return savedGroup;
         } catch (Exception e) {
-            System.err.println("Error in createGroup: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Failed to create group", e);
             throw new CustomException("Failed to create group: " + e.getMessage());
         }
     }
 
     @MutationMapping
-    public GroupMember joinGroup(@Argument("groupId") Long groupId, @Argument("userId") Long userId) {
-        return groupService.joinGroup(groupId, userId);
+    public Callable<GroupMember> joinGroup(@Argument("groupId") Long groupId, @Argument("userId") Long userId) {
+        return () -> groupService.joinGroup(groupId, userId);
     }
 
     @MutationMapping
-    public GroupMember updateMemberStatus(
+    public Callable<GroupMember> updateMemberStatus(
             @Argument("groupId") Long groupId,
             @Argument("userId") Long userId,
             @Argument("status") MemberStatus status) {
         // 使用 GroupService 中的方法，确保推送事件逻辑
-        return groupService.updateMemberStatus(groupId, userId, status);
+        return () -> groupService.updateMemberStatus(groupId, userId, status);
     }
 
     @MutationMapping
-    public Group updateGroupStatus(
+    public Callable<Group> updateGroupStatus(
             @Argument("groupId") Long groupId,
             @Argument("status") GroupStatus status) {
-        return groupService.updateGroupStatus(groupId, status);
+        return () -> groupService.updateGroupStatus(groupId, status);
     }
 
     @MutationMapping
-    public PaymentCard generatePaymentCard(@Argument("groupId") Long groupId) {
-        Group group = groupRepository.findById(groupId)
-            .orElseThrow(() -> new CustomException("Group not found"));
-
-        List<GroupMember> members = groupMemberRepository.findByGroup(group);
-
-        // ✅ 先检查人数是否匹配
-        if (members.size() != group.getTotalPeople()) {
-            throw new CustomException("Not enough members to generate payment card. Expected " 
-                + group.getTotalPeople() + ", but got " + members.size());
-        }
-
-        // ✅ 检查所有人是否同意
-        boolean allAgreed = members.stream()
-            .allMatch(member -> member.getStatus() == MemberStatus.AGREED);
-
-        if (!allAgreed) {
-            throw new CustomException("Not all members have agreed to the payment");
-        }
-
-        // 🟩 符合条件，生成卡片
-        PaymentCard card = new PaymentCard();
-        card.setGroup(group);
-        card.setCardNumber(generateCardNumber());
-        card.setAmount(group.getTotalAmount());
-        card.setStatus(PaymentCardStatus.ACTIVE);
-        // 生成卡后更新群组状态为已完成Add commentMore actions
-        group.setStatus(GroupStatus.COMPLETED);
-        Group updatedGroup = groupRepository.save(group);
-
-        // 发布群组状态更新事件
-        subscriptionResolver.publishGroupUpdate(groupId.toString(), updatedGroup);
-        return paymentCardRepository.save(card);
+    public Callable<PaymentCard> generatePaymentCard(@Argument("groupId") Long groupId) {
+        return () -> groupService.generatePaymentCard(groupId);
     }
 
 
     @MutationMapping
-    public Transaction createTransaction(@Argument("input") CreateTransactionInput input) {
-        User sender = userRepository.findById(Long.parseLong(input.getSenderId().toString()))
-            .orElseThrow(() -> new CustomException("Sender not found"));
-        User receiver = userRepository.findById(Long.parseLong(input.getReceiverId().toString()))
-            .orElseThrow(() -> new CustomException("Receiver not found"));
-
-        Transaction transaction = new Transaction();
-        transaction.setSender(sender);
-        transaction.setReceiver(receiver);
-        transaction.setAmount(input.getAmount());
-        transaction.setDescription(input.getDescription());
-        transaction.setStatus(TransactionStatus.PENDING);
-
-        return transactionRepository.save(transaction);
+    public Callable<TransactionView> createTransaction(@Argument("input") CreateTransactionInput input) {
+        return () -> TransactionView.from(transactionService.createTransaction(input));
     }
 
     @MutationMapping
-    public Transaction updateTransactionStatus(
+    public Callable<TransactionView> updateTransactionStatus(
             @Argument("id") String id,
             @Argument("status") TransactionStatus status) {
-        Transaction transaction = transactionRepository.findById(Long.parseLong(id))
-            .orElseThrow(() -> new CustomException("Transaction not found"));
-
-        transaction.setStatus(status);
-        return transactionRepository.save(transaction);
+        return () -> TransactionView.from(transactionService.updateTransactionStatus(Long.parseLong(id), status));
     }
 
     @MutationMapping
-    public AuthPayload login(@Argument String username, @Argument String password) {
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new CustomException("User not found"));
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new CustomException("Invalid password");
-        }
-        String token = "mock-jwt-token-" + user.getId();
-        return new AuthPayload(token, user);
-    }
-
-    private String generateCardNumber() {
-        return String.format("%016d", System.nanoTime() % 10000000000000000L);
+    public CompletableFuture<AuthPayload> login(@Argument String username, @Argument String password) {
+        return CompletableFuture.supplyAsync(() -> userRepository.findByUsername(username)
+                .orElseThrow(() -> new CustomException("User not found")), taskExecutor)
+            .thenCompose(user -> passwordHasher.verify(password, user.getPassword(), rehashOnLogin)
+                .thenApplyAsync(result -> {
+                    if (!result.isMatched()) {
+                        throw new CustomException("Invalid password");
+                    }
+                    // The stored hash used an older cost factor; replace it while the plain password is at hand
+                    if (result.getUpgradedHash() != null) {
+                        user.setPassword(result.getUpgradedHash());
+                        userRepository.save(user);
+                    }
+                    return new AuthPayload(jwtTokenProvider.generateToken(user), user);
+                }, taskExecutor));
     }
 }
@@ -0,0 +1,115 @@
+package com.paytool.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Function;
+
+// Automatic persisted queries plus a cache of parsed and validated documents, keyed by the
+// SHA-256 of the query text. A client sends extensions.persistedQuery.sha256Hash with no query
+// (or the "PersistedQueryMarker" placeholder); if the hash is unknown it gets PersistedQueryNotFound
+// and resends once with the full text, which registers it. Plain requests share the same cache,
+// so any repeated operation skips parsing and validation.
+@Component
+public class PersistedDocumentProvider implements PreparsedDocumentProvider {
+    private final Cache<String, PreparsedDocumentEntry> documents;
+    private final Counter persistedHits;
+    private final Counter persistedMisses;
+
+    public PersistedDocumentProvider(
+            MeterRegistry meterRegistry,
+            @Value("${paytool.graphql.document-cache-size:2000}") long cacheSize) {
+        this.documents = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphql.documents");
+        this.persistedHits = Counter.builder("paytool.graphql.persisted")
+            .description("Hash-only requests by outcome")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.persistedMisses = Counter.builder("paytool.graphql.persisted")
+            .description("Hash-only requests by outcome")
+            .tag("result", "not-found")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(
+            ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String query = executionInput.getQuery();
+        String hash = persistedHash(executionInput);
+        boolean hashOnly = query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query);
+
+        if (hash != null && hashOnly) {
+            PreparsedDocumentEntry entry = documents.getIfPresent(hash);
+            if (entry == null) {
+                persistedMisses.increment();
+                return new PreparsedDocumentEntry(notFound(hash));
+            }
+            persistedHits.increment();
+            return entry;
+        }
+
+        String key = sha256(query);
+        if (hash != null && !hash.equalsIgnoreCase(key)) {
+            return new PreparsedDocumentEntry(
+                GraphqlErrorBuilder.newError().message("PersistedQueryIdInvalid").build());
+        }
+
+        PreparsedDocumentEntry entry = documents.getIfPresent(key);
+        if (entry == null) {
+            entry = parseAndValidateFunction.apply(executionInput);
+            // Documents with errors are not kept, so broken or hostile queries cannot crowd out good ones
+            if (!entry.hasErrors()) {
+                documents.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    // Clients retry with the full text when they see the "PersistedQueryNotFound" message
+    private static GraphQLError notFound(String hash) {
+        PersistedQueryNotFound notFound = new PersistedQueryNotFound(hash);
+        return GraphqlErrorBuilder.newError()
+            .message(notFound.getMessage())
+            .errorType(notFound)
+            .extensions(notFound.getExtensions())
+            .build();
+    }
+
+    private static String persistedHash(ExecutionInput executionInput) {
+        Map<String, Object> extensions = executionInput.getExtensions();
+        if (extensions == null || !(extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery)) {
+            return null;
+        }
+        return persistedQuery.get("sha256Hash") instanceof String hash ? hash : null;
+    }
+
+    private static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
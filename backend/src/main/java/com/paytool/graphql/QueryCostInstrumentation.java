@@ -0,0 +1,165 @@
+package com.paytool.graphql;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.normalized.ExecutableNormalizedOperation;
+import graphql.normalized.ExecutableNormalizedOperationFactory;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Prices an operation after validation and before any resolver runs, and aborts it when it is
+// deeper or more expensive than allowed. Every object a field resolves costs its static cost;
+// list fields multiply their subtree by the page size they ask for, or by an estimate when
+// they have no page argument. The result is reported under extensions.cost.
+@Component
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+    // Whole-table lists that only admin deployments enable
+    private static final Set<String> UNBOUNDED_LISTS = Set.of(
+        "Query.users", "Query.groups", "Query.transactions", "Query.userTransactions");
+
+    // Cost per resolved object for fields that do noticeably more work than loading one row;
+    // every other object costs 1. List fields need no entry: their size already multiplies this
+    // cost and their subtree, so settleUp is priced at 20 for each settlement it may return.
+    // New expensive resolvers are added here by hand.
+    private static final Map<String, Integer> FIELD_COSTS = Map.of(
+        "Query.settleUp", 20,
+        "Query.pairBalances", 5);
+
+    private final int maxDepth;
+    private final int maxCost;
+    private final int defaultListSize;
+    private final int unboundedListSize;
+    private final DistributionSummary costs;
+    private final Counter rejected;
+
+    public QueryCostInstrumentation(
+            MeterRegistry meterRegistry,
+            @Value("${paytool.graphql.cost.max-depth:8}") int maxDepth,
+            @Value("${paytool.graphql.cost.max-cost:5000}") int maxCost,
+            @Value("${paytool.graphql.cost.default-list-size:20}") int defaultListSize,
+            @Value("${paytool.graphql.cost.unbounded-list-size:1000}") int unboundedListSize) {
+        this.maxDepth = maxDepth;
+        this.maxCost = maxCost;
+        this.defaultListSize = defaultListSize;
+        this.unboundedListSize = unboundedListSize;
+        this.costs = DistributionSummary.builder("paytool.graphql.query.cost")
+            .description("Computed cost of executed operations")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("paytool.graphql.query.rejected")
+            .description("Operations refused for exceeding the depth or cost budget")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new CostState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        GraphQLSchema schema = context.getGraphQLSchema();
+        ExecutableNormalizedOperation operation = ExecutableNormalizedOperationFactory.createExecutableNormalizedOperation(
+            schema, context.getOperationDefinition(), context.getFragmentsByName(), context.getCoercedVariables());
+
+        CostState cost = (CostState) state;
+        for (ExecutableNormalizedField field : operation.getTopLevelFields()) {
+            cost.cost += cost(schema, field, null, cost);
+        }
+        costs.record(cost.cost);
+
+        if (cost.depth > maxDepth) {
+            rejected.increment();
+            throw new AbortExecutionException("Query depth " + cost.depth + " exceeds the limit of " + maxDepth);
+        }
+        if (cost.cost > maxCost) {
+            rejected.increment();
+            throw new AbortExecutionException("Query cost " + cost.cost + " exceeds the limit of " + maxCost);
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(
+            ExecutionResult executionResult, InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        CostState cost = (CostState) state;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requested", cost.cost);
+        report.put("maximum", maxCost);
+        report.put("depth", cost.depth);
+        report.put("maxDepth", maxDepth);
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+            .from(executionResult)
+            .addExtension("cost", report)
+            .build());
+    }
+
+    // pageSize is the "first" argument of the nearest connection above, which sizes its edges list
+    private long cost(GraphQLSchema schema, ExecutableNormalizedField field, Integer pageSize, CostState state) {
+        if (field.getName().startsWith("__")) {
+            return 0;
+        }
+        state.depth = Math.max(state.depth, field.getLevel());
+
+        GraphQLOutputType type = field.getType(schema);
+        if (GraphQLTypeUtil.isLeaf(GraphQLTypeUtil.unwrapAll(type))) {
+            return 0;
+        }
+
+        String key = objectTypeName(field) + "." + field.getName();
+        long size = 1;
+        if (GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(type))) {
+            if (pageSize != null) {
+                size = pageSize;
+            } else {
+                size = UNBOUNDED_LISTS.contains(key) ? unboundedListSize : defaultListSize;
+            }
+        }
+
+        Integer childPageSize = null;
+        GraphQLFieldDefinition definition = field.getFieldDefinitions(schema).get(0);
+        if (definition.getArgument("first") != null) {
+            childPageSize = field.getResolvedArguments().get("first") instanceof Integer first ? first : defaultListSize;
+        }
+
+        long children = 0;
+        for (ExecutableNormalizedField child : field.getChildren()) {
+            children += cost(schema, child, childPageSize, state);
+        }
+        return size * (FIELD_COSTS.getOrDefault(key, 1) + children);
+    }
+
+    private static String objectTypeName(ExecutableNormalizedField field) {
+        List<String> names = List.copyOf(field.getObjectTypeNames());
+        return names.isEmpty() ? "" : names.get(0);
+    }
+
+    private static class CostState implements InstrumentationState {
+        long cost;
+        int depth;
+    }
+}
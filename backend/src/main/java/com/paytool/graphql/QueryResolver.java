@@ -1,27 +1,56 @@
 package com.paytool.graphql;
 
+import com.paytool.dto.Connection;
+import com.paytool.dto.PairBalanceView;
+import com.paytool.dto.Settlement;
+import com.paytool.dto.TransactionSelection;
+import com.paytool.dto.TransactionView;
+import com.paytool.exception.CustomException;
 import com.paytool.model.Group;
 import com.paytool.model.GroupMember;
-import com.paytool.model.Transaction;
 import com.paytool.model.User;
+import com.paytool.model.UserBalance;
 import com.paytool.repository.GroupMemberRepository;
 import com.paytool.repository.GroupRepository;
-import com.paytool.repository.TransactionRepository;
+import com.paytool.repository.TransactionViewRepository;
 import com.paytool.repository.UserRepository;
+import com.paytool.service.BalanceLedger;
+import com.paytool.service.SettlementService;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
+// Fetchers that read the database return Callable, so Spring GraphQL runs them on Boot's
+// applicationTaskExecutor: a small pool on platform threads, virtual threads when
+// spring.threads.virtual.enabled is set.
 @Controller
 @RequiredArgsConstructor
 public class QueryResolver {
     private final UserRepository userRepository;
     private final GroupRepository groupRepository;
     private final GroupMemberRepository groupMemberRepository;
-    private final TransactionRepository transactionRepository;
+    private final TransactionViewRepository transactionViewRepository;
+    private final BalanceLedger balanceLedger;
+    private final SettlementService settlementService;
+
+    // users/groups/transactions/userTransactions return whole tables. This is a deployment-wide
+    // switch, not a per-caller check: where it is on, every caller can use them.
+    @Value("${paytool.graphql.admin-deployment:false}")
+    private boolean adminDeployment;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @QueryMapping
     public String hello() {
@@ -29,60 +58,175 @@ public class QueryResolver {
     }
 
     @QueryMapping
-    public User user(@Argument Long id) {
-        return userRepository.findById(id).orElse(null);
+    public Callable<User> user(@Argument Long id) {
+        return () -> userRepository.findById(id).orElse(null);
     }
 
     @QueryMapping
-    public List<User> users() {
-        return userRepository.findAll();
+    public Callable<List<User>> users() {
+        requireUnboundedLists("users");
+        return () -> userRepository.findAll();
     }
 
     @QueryMapping
-    public Group group(@Argument Long id) {
-        return groupRepository.findById(id).orElse(null);
+    public Callable<Group> group(@Argument Long id) {
+        return () -> groupRepository.findById(id).orElse(null);
     }
 
     @QueryMapping
-    public List<Group> groups() {
-        return groupRepository.findAll();
+    public Callable<List<Group>> groups() {
+        requireUnboundedLists("groups");
+        return () -> groupRepository.findAll();
     }
 
     @QueryMapping
-    public List<Group> userGroups(@Argument Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            return List.of();
-        }
-        List<GroupMember> memberships = groupMemberRepository.findByUser(user);
-        return memberships.stream().map(GroupMember::getGroup).distinct().toList();
+    public Callable<List<Group>> userGroups(@Argument Long userId) {
+        return () -> groupRepository.findByMemberUserId(userId);
+    }
+
+    @QueryMapping
+    public Callable<List<GroupMember>> groupMembers(@Argument Long groupId) {
+        return () -> {
+            Group group = groupRepository.findById(groupId).orElse(null);
+            if (group == null) {
+                return List.of();
+            }
+            return groupMemberRepository.findByGroup(group);
+        };
+    }
+
+    // Read from the ledger instead of summing the user's transaction history
+    @QueryMapping
+    public Callable<UserBalance> userBalance(@Argument Long userId) {
+        return () -> balanceLedger.balance(userId);
+    }
+
+    @QueryMapping
+    public Callable<List<PairBalanceView>> pairBalances(@Argument Long userId) {
+        return () -> balanceLedger.pairBalances(userId);
     }
 
     @QueryMapping
-    public List<GroupMember> groupMembers(@Argument Long groupId) {
-        Group group = groupRepository.findById(groupId).orElse(null);
-        if (group == null) {
-            return List.of();
+    public Callable<List<Settlement>> settleUp(@Argument List<Long> userIds) {
+        return () -> settlementService.settleUp(userIds);
+    }
+
+    @QueryMapping
+    public Callable<TransactionView> transaction(@Argument Long id, DataFetchingFieldSelectionSet selectionSet) {
+        return () -> transactionViewRepository.findById(transactionSelection(selectionSet, ""), id).orElse(null);
+    }
+
+    @QueryMapping
+    public Callable<List<TransactionView>> transactions(DataFetchingFieldSelectionSet selectionSet) {
+        requireUnboundedLists("transactions");
+        return () -> transactionViewRepository.findPage(transactionSelection(selectionSet, ""), null, null, null, null);
+    }
+
+    @QueryMapping
+    public Callable<List<TransactionView>> userTransactions(@Argument Long userId, DataFetchingFieldSelectionSet selectionSet) {
+        requireUnboundedLists("userTransactions");
+        return () -> transactionViewRepository.findPage(transactionSelection(selectionSet, ""), userId, null, null, null);
+    }
+
+    @QueryMapping
+    public Callable<Connection<User>> usersConnection(@Argument Integer first, @Argument String after) {
+        return () -> userPage(first, after);
+    }
+
+    private Connection<User> userPage(Integer first, String after) {
+        int limit = pageSize(first);
+        List<User> rows;
+        if (after == null) {
+            rows = userRepository.findFirstPage(fetchOneExtra(limit));
+        } else {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            rows = userRepository.findPageAfter(cursor.getCreatedAt(), cursor.getId(), fetchOneExtra(limit));
         }
-        return groupMemberRepository.findByGroup(group);
+        return Connection.of(rows, limit, u -> KeysetCursor.encode(u.getCreatedAt(), u.getId()));
     }
 
     @QueryMapping
-    public Transaction transaction(@Argument Long id) {
-        return transactionRepository.findById(id).orElse(null);
+    public Callable<Connection<Group>> groupsConnection(@Argument Integer first, @Argument String after) {
+        return () -> groupPage(first, after);
+    }
+
+    private Connection<Group> groupPage(Integer first, String after) {
+        int limit = pageSize(first);
+        List<Group> rows;
+        if (after == null) {
+            rows = groupRepository.findFirstPage(fetchOneExtra(limit));
+        } else {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            rows = groupRepository.findPageAfter(cursor.getCreatedAt(), cursor.getId(), fetchOneExtra(limit));
+        }
+        return Connection.of(rows, limit, g -> KeysetCursor.encode(g.getCreatedAt(), g.getId()));
     }
 
     @QueryMapping
-    public List<Transaction> transactions() {
-        return transactionRepository.findAll();
+    public Callable<Connection<TransactionView>> transactionsConnection(
+            @Argument Integer first,
+            @Argument String after,
+            DataFetchingFieldSelectionSet selectionSet) {
+        return () -> transactionPage(null, first, after, selectionSet);
     }
 
     @QueryMapping
-    public List<Transaction> userTransactions(@Argument Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            return List.of();
+    public Callable<Connection<TransactionView>> userTransactionsConnection(
+            @Argument Long userId,
+            @Argument Integer first,
+            @Argument String after,
+            DataFetchingFieldSelectionSet selectionSet) {
+        return () -> transactionPage(userId, first, after, selectionSet);
+    }
+
+    private Connection<TransactionView> transactionPage(
+            Long userId, Integer first, String after, DataFetchingFieldSelectionSet selectionSet) {
+        int limit = pageSize(first);
+        TransactionSelection selection = transactionSelection(selectionSet, "edges/node/");
+        List<TransactionView> rows;
+        if (after == null) {
+            rows = transactionViewRepository.findPage(selection, userId, null, null, limit + 1);
+        } else {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            rows = transactionViewRepository.findPage(selection, userId, cursor.getCreatedAt(), cursor.getId(), limit + 1);
+        }
+        return Connection.of(rows, limit, t -> KeysetCursor.encode(t.getCreatedAt(), t.getId()));
+    }
+
+    // Transaction history selects only the columns under the Transaction at path
+    private static TransactionSelection transactionSelection(DataFetchingFieldSelectionSet selectionSet, String path) {
+        return new TransactionSelection(
+            fieldNames(selectionSet, path + "*"),
+            fieldNames(selectionSet, path + "sender/*"),
+            fieldNames(selectionSet, path + "receiver/*"));
+    }
+
+    private static Set<String> fieldNames(DataFetchingFieldSelectionSet selectionSet, String glob) {
+        Set<String> names = new HashSet<>();
+        for (SelectedField field : selectionSet.getFields(glob)) {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    private void requireUnboundedLists(String field) {
+        if (!adminDeployment) {
+            throw new CustomException("Query '" + field + "' is disabled; use " + field + "Connection instead");
         }
-        return transactionRepository.findBySenderOrReceiver(user, user);
     }
-} 
\ No newline at end of file
+
+    private static int pageSize(Integer first) {
+        if (first == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (first < 1 || first > MAX_PAGE_SIZE) {
+            throw new CustomException("first must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return first;
+    }
+
+    // One row past the page tells us whether there is a next page without a COUNT query
+    private static Pageable fetchOneExtra(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+}
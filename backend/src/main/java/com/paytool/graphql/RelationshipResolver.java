@@ -0,0 +1,160 @@
+package com.paytool.graphql;
+
+import com.paytool.dto.TransactionView;
+import com.paytool.dto.UserView;
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import com.paytool.model.PaymentCard;
+import com.paytool.model.User;
+import com.paytool.repository.GroupMemberRepository;
+import com.paytool.repository.GroupRepository;
+import com.paytool.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Resolves relationship fields per level of the query with a single IN (...) lookup
+// instead of walking the lazy JPA associations one entity at a time.
+// Every method returns values in the same order as the incoming keys.
+@Controller
+@RequiredArgsConstructor
+public class RelationshipResolver {
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
+
+    @BatchMapping(typeName = "Group", field = "leader")
+    public List<User> leader(List<Group> groups) {
+        return loadUsers(groups, Group::getLeader);
+    }
+
+    @BatchMapping(typeName = "Group", field = "members")
+    public List<List<GroupMember>> members(List<Group> groups) {
+        Set<Long> groupIds = new LinkedHashSet<>();
+        for (Group group : groups) {
+            groupIds.add(group.getId());
+        }
+
+        Map<Long, List<GroupMember>> byGroupId = new HashMap<>();
+        for (GroupMember member : groupMemberRepository.findByGroupIdIn(groupIds)) {
+            byGroupId.computeIfAbsent(member.getGroup().getId(), k -> new ArrayList<>()).add(member);
+        }
+
+        List<List<GroupMember>> result = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            result.add(byGroupId.getOrDefault(group.getId(), List.of()));
+        }
+        return result;
+    }
+
+    @BatchMapping(typeName = "GroupMember", field = "user")
+    public List<User> memberUser(List<GroupMember> members) {
+        return loadUsers(members, GroupMember::getUser);
+    }
+
+    @BatchMapping(typeName = "GroupMember", field = "group")
+    public List<Group> memberGroup(List<GroupMember> members) {
+        return loadGroups(members, GroupMember::getGroup);
+    }
+
+    @BatchMapping(typeName = "PaymentCard", field = "group")
+    public List<Group> cardGroup(List<PaymentCard> cards) {
+        return loadGroups(cards, PaymentCard::getGroup);
+    }
+
+    @BatchMapping(typeName = "Transaction", field = "sender")
+    public List<UserView> sender(List<TransactionView> transactions) {
+        return loadUserViews(transactions, TransactionView::getSender, TransactionView::getSenderId);
+    }
+
+    @BatchMapping(typeName = "Transaction", field = "receiver")
+    public List<UserView> receiver(List<TransactionView> transactions) {
+        return loadUserViews(transactions, TransactionView::getReceiver, TransactionView::getReceiverId);
+    }
+
+    // Reading the id of an uninitialized Hibernate proxy does not hit the database,
+    // so collecting the keys is free; only the findAllById call issues a statement.
+    // Associations the parent query already fetched are returned as they are.
+    private <T> List<User> loadUsers(List<T> sources, Function<T, User> association) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T source : sources) {
+            User user = association.apply(source);
+            if (!Hibernate.isInitialized(user)) {
+                ids.add(user.getId());
+            }
+        }
+
+        Map<Long, User> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (User user : userRepository.findAllById(ids)) {
+                byId.put(user.getId(), user);
+            }
+        }
+
+        List<User> result = new ArrayList<>(sources.size());
+        for (T source : sources) {
+            User user = association.apply(source);
+            result.add(Hibernate.isInitialized(user) ? user : byId.get(user.getId()));
+        }
+        return result;
+    }
+
+    private <T> List<Group> loadGroups(List<T> sources, Function<T, Group> association) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T source : sources) {
+            Group group = association.apply(source);
+            if (!Hibernate.isInitialized(group)) {
+                ids.add(group.getId());
+            }
+        }
+
+        Map<Long, Group> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Group group : groupRepository.findAllById(ids)) {
+                byId.put(group.getId(), group);
+            }
+        }
+
+        List<Group> result = new ArrayList<>(sources.size());
+        for (T source : sources) {
+            Group group = association.apply(source);
+            result.add(Hibernate.isInitialized(group) ? group : byId.get(group.getId()));
+        }
+        return result;
+    }
+
+    // Projection queries already joined the users they were asked for; the rest are loaded by id
+    private List<UserView> loadUserViews(List<TransactionView> transactions,
+                                         Function<TransactionView, UserView> joined,
+                                         Function<TransactionView, Long> foreignKey) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (TransactionView transaction : transactions) {
+            if (joined.apply(transaction) == null) {
+                ids.add(foreignKey.apply(transaction));
+            }
+        }
+
+        Map<Long, UserView> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (User user : userRepository.findAllById(ids)) {
+                byId.put(user.getId(), UserView.from(user));
+            }
+        }
+
+        List<UserView> result = new ArrayList<>(transactions.size());
+        for (TransactionView transaction : transactions) {
+            UserView user = joined.apply(transaction);
+            result.add(user != null ? user : byId.get(foreignKey.apply(transaction)));
+        }
+        return result;
+    }
+}
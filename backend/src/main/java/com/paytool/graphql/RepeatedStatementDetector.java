@@ -0,0 +1,55 @@
+package com.paytool.graphql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Flags statement shapes that a single request issued repeatedly, the usual sign of a lazy
+// association or a resolver loading rows one parent at a time. Literals and IN lists are
+// collapsed first, so batches of different sizes count as the same shape.
+public class RepeatedStatementDetector {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final int threshold;
+
+    public RepeatedStatementDetector(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public List<Map<String, Object>> detect(RequestTrace trace) {
+        List<Map<String, Object>> repeated = new ArrayList<>();
+        for (RequestTrace.StatementStats stats : trace.statementsByShape().values()) {
+            if (stats.getCount() >= threshold) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("sql", stats.getShape());
+                entry.put("count", stats.getCount());
+                repeated.add(entry);
+            }
+        }
+        return repeated;
+    }
+
+    // For tests: fails when the traced work issued more statements than allowed or repeated a shape
+    public void assertWithin(RequestTrace trace, int maxStatements) {
+        if (trace.statementCount() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " statements but "
+                + trace.statementCount() + " were issued: " + trace.statementsByShape().keySet());
+        }
+        List<Map<String, Object>> repeated = detect(trace);
+        if (!repeated.isEmpty()) {
+            throw new AssertionError("Repeated statements: " + repeated);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.paytool.graphql;
+
+import graphql.execution.instrumentation.InstrumentationState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+// Everything recorded for one traced request. Statements are attributed through a thread local
+// that Spring GraphQL restores around every resolver and batch loader, so a trace follows the
+// request onto other threads.
+public class RequestTrace implements InstrumentationState {
+    public static final String HEADER = "X-PayTool-Trace";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Queue<Timing> fields = new ConcurrentLinkedQueue<>();
+    private final Queue<Timing> statements = new ConcurrentLinkedQueue<>();
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(RequestTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void clearCurrent() {
+        CURRENT.remove();
+    }
+
+    // Records every statement issued by work on the calling thread, for callers outside an HTTP request
+    public static <T> T capture(RequestTrace trace, Supplier<T> work) {
+        RequestTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public synchronized void recordPhase(String phase, long nanos) {
+        phases.merge(phase, nanos, Long::sum);
+    }
+
+    public void recordField(String path, long nanos) {
+        fields.add(new Timing(path, nanos));
+    }
+
+    public void recordStatement(String sql, long nanos) {
+        statements.add(new Timing(sql, nanos));
+    }
+
+    public int statementCount() {
+        return statements.size();
+    }
+
+    // Statements grouped by shape, in order of first appearance
+    public Map<String, StatementStats> statementsByShape() {
+        Map<String, StatementStats> byShape = new LinkedHashMap<>();
+        for (Timing statement : statements) {
+            byShape.computeIfAbsent(RepeatedStatementDetector.shape(statement.name), StatementStats::new)
+                .add(statement.nanos);
+        }
+        return byShape;
+    }
+
+    public Map<String, Object> toExtension(RepeatedStatementDetector detector) {
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("durationMs", millis(System.nanoTime() - startNanos));
+
+        Map<String, Object> phaseMillis = new LinkedHashMap<>();
+        synchronized (this) {
+            phases.forEach((phase, nanos) -> phaseMillis.put(phase, millis(nanos)));
+        }
+        trace.put("phases", phaseMillis);
+
+        List<Map<String, Object>> fieldTimings = new ArrayList<>();
+        for (Timing field : fields) {
+            fieldTimings.add(Map.of("path", field.name, "durationMs", millis(field.nanos)));
+        }
+        trace.put("fields", fieldTimings);
+
+        List<Map<String, Object>> statementStats = new ArrayList<>();
+        for (StatementStats stats : statementsByShape().values()) {
+            statementStats.add(Map.of("sql", stats.getShape(), "count", stats.getCount(), "totalMs", millis(stats.getNanos())));
+        }
+        trace.put("statementCount", statementCount());
+        trace.put("statements", statementStats);
+        trace.put("repeatedStatements", detector.detect(this));
+        return trace;
+    }
+
+    static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    private static final class Timing {
+        private final String name;
+        private final long nanos;
+
+        private Timing(String name, long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+
+    public static final class StatementStats {
+        private final String shape;
+        private int count;
+        private long nanos;
+
+        private StatementStats(String shape) {
+            this.shape = shape;
+        }
+
+        private void add(long statementNanos) {
+            count++;
+            nanos += statementNanos;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.paytool.graphql;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+// Lets Spring GraphQL carry the request's trace from the servlet thread into resolvers and batch loaders
+public class RequestTraceAccessor implements ThreadLocalAccessor<RequestTrace> {
+    public static final String KEY = "paytool.request-trace";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public RequestTrace getValue() {
+        return RequestTrace.current();
+    }
+
+    @Override
+    public void setValue(RequestTrace value) {
+        RequestTrace.setCurrent(value);
+    }
+
+    @Override
+    public void setValue() {
+        RequestTrace.clearCurrent();
+    }
+}
@@ -0,0 +1,28 @@
+package com.paytool.graphql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Starts a trace for requests that send the trace header; everything else passes through untouched
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"true".equalsIgnoreCase(request.getHeader(RequestTrace.HEADER))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestTrace.setCurrent(new RequestTrace());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTrace.clearCurrent();
+        }
+    }
+}
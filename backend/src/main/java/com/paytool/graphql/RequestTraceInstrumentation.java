@@ -0,0 +1,84 @@
+package com.paytool.graphql;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.validation.ValidationError;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Times parse, validate, execute and every non-trivial resolver of traced requests, and adds the
+// trace to extensions.trace. Untraced requests get no state, so every hook is a no-op for them.
+// Parse and validate are missing from the trace when the document came from the document cache.
+public class RequestTraceInstrumentation extends SimplePerformantInstrumentation {
+    private final RepeatedStatementDetector detector;
+
+    public RequestTraceInstrumentation(RepeatedStatementDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        RequestTrace trace = parameters.getExecutionInput().getGraphQLContext().get(RequestTraceAccessor.KEY);
+        return trace != null ? trace : RequestTrace.current();
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(
+            InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        return phase(state, "parse");
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(
+            InstrumentationValidationParameters parameters, InstrumentationState state) {
+        return phase(state, "validate");
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        return phase(state, "execute");
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(
+            InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+        if (!(state instanceof RequestTrace trace) || parameters.isTrivialDataFetcher()) {
+            return null;
+        }
+        String path = parameters.getExecutionStepInfo().getPath().toString();
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, error) -> trace.recordField(path, System.nanoTime() - start));
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(
+            ExecutionResult executionResult, InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        if (!(state instanceof RequestTrace trace)) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+            .from(executionResult)
+            .addExtension("trace", trace.toExtension(detector))
+            .build());
+    }
+
+    private static <T> InstrumentationContext<T> phase(InstrumentationState state, String name) {
+        if (!(state instanceof RequestTrace trace)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        return SimpleInstrumentationContext.whenCompleted((value, error) -> trace.recordPhase(name, System.nanoTime() - start));
+    }
+}
@@ -30,6 +30,8 @@ package com.paytool.graphql;
 //     }
 // } 
 
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.dto.MemberDelta;
 import com.paytool.model.Group;
 import com.paytool.model.GroupMember;
 import com.paytool.service.GroupPublisher;
@@ -40,6 +42,7 @@ import reactor.core.publisher.Flux;
 import org.reactivestreams.Publisher;
 import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import java.time.Duration;
 
 @Controller
@@ -52,20 +55,37 @@ public class SubscriptionResolver {
 
     @SubscriptionMapping("groupStatusChanged")
     public Flux<Group> groupStatusChanged(@Argument("groupId") String groupId) {
-        System.out.println("Group subscription established for groupId: " + groupId);
-        return groupPublisher
-            .getGroupStatusFlux(groupId)
-            .doOnNext(g -> System.out.println("Emitting group update: " + g))
-            .doOnCancel(() -> System.out.println("Group subscription cancelled for " + groupId));
+        return groupPublisher.getGroupStatusFlux(groupId);
     }
 
     @SubscriptionMapping("memberStatusChanged")
     public Flux<GroupMember> memberStatusChanged(@Argument("groupId") String groupId) {
-        System.out.println("Member subscription established for groupId: " + groupId);
-        return groupPublisher
-            .getMemberStatusFlux(groupId)
-            .doOnNext(m -> System.out.println("Emitting member update: " + m))
-            .doOnCancel(() -> System.out.println("Member subscription cancelled for " + groupId));
+        return groupPublisher.getMemberStatusFlux(groupId);
+    }
+
+    @SubscriptionMapping("groupSnapshots")
+    public Flux<GroupSnapshot> groupSnapshots(
+            @Argument("groupId") String groupId,
+            @Argument("afterSeq") String afterSeq) {
+        return groupPublisher.getGroupSnapshotFlux(groupId, afterSeq);
+    }
+
+    @SubscriptionMapping("memberDeltas")
+    public Flux<MemberDelta> memberDeltas(
+            @Argument("groupId") String groupId,
+            @Argument("afterSeq") String afterSeq) {
+        return groupPublisher.getMemberDeltaFlux(groupId, afterSeq);
+    }
+
+    // Clients see versions as opaque cursors that name the node run which issued them
+    @SchemaMapping(typeName = "GroupSnapshot", field = "version")
+    public String snapshotVersion(GroupSnapshot snapshot) {
+        return groupPublisher.cursor(snapshot.getVersion());
+    }
+
+    @SchemaMapping(typeName = "MemberDelta", field = "version")
+    public String deltaVersion(MemberDelta delta) {
+        return groupPublisher.cursor(delta.getVersion());
     }
 
     public void publishGroupUpdate(String groupId, Group group) {
@@ -0,0 +1,16 @@
+package com.paytool.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// High-water mark of the card number space; each row update hands a node a block of numbers
+@Data
+@Entity
+@Table(name = "card_number_blocks")
+public class CardNumberBlock {
+    @Id
+    private String name;
+
+    @Column(name = "next_hi", nullable = false)
+    private Long nextHi;
+}
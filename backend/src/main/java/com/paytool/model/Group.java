@@ -2,6 +2,9 @@ package com.paytool.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,7 +14,11 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "payment_groups")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "groups")
+@Table(name = "payment_groups", indexes = {
+    @Index(name = "idx_payment_groups_created_id", columnList = "created_at, id")
+})
 public class Group {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +42,7 @@ public class Group {
     private String qrCode;
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "group-member-lists")
     private List<GroupMember> members = new ArrayList<>();
 
 
@@ -47,6 +55,20 @@ public class Group {
     @Column(name = "total_people", nullable = false)
     private Integer totalPeople;
 
+    // Seats taken, maintained by GroupRepository.incrementJoinedCount
+    @ColumnDefault("0")
+    @Column(name = "joined_count", nullable = false)
+    private Integer joinedCount = 0;
+
+    // Members whose status is AGREED, maintained by GroupService.updateMemberStatus
+    @ColumnDefault("0")
+    @Column(name = "agreed_count", nullable = false)
+    private Integer agreedCount = 0;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     // getter 和 setter
     public Integer getTotalPeople() {
         return totalPeople;
@@ -60,4 +82,21 @@ public class Group {
     public String toString() {
         return "Group{id=" + id + ", description=" + description + ", status=" + status + ", totalAmount=" + totalAmount + ", totalPeople=" + totalPeople + "}";
     }
-} 
\ No newline at end of file
+
+    // Identity is the database id so hashing never walks associations or initializes proxies
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Group other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Group.class.hashCode();
+    }
+}
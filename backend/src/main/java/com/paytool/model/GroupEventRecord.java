@@ -0,0 +1,36 @@
+package com.paytool.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "group_events", indexes = {
+    @Index(name = "idx_group_events_created", columnList = "created_at")
+})
+public class GroupEventRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private GroupEventType type;
+
+    @Column(nullable = false)
+    private Long groupId;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private String originNode;
+
+    // Database clock, so nodes whose clocks disagree still agree on how old a row is
+    @CreationTimestamp(source = SourceType.DB)
+    private LocalDateTime createdAt;
+}
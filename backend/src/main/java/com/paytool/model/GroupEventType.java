@@ -0,0 +1,6 @@
+package com.paytool.model;
+
+public enum GroupEventType {
+    GROUP,
+    MEMBER
+}
@@ -2,13 +2,19 @@ package com.paytool.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "group_members")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "group-members")
+@Table(name = "group_members", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_group_members_group_user", columnNames = {"group_id", "user_id"})
+})
 public class GroupMember {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,4 +42,20 @@ public class GroupMember {
     public String toString() {
         return "GroupMember{id=" + id + ", status=" + status + ", amount=" + amount + ", groupId=" + (group != null ? group.getId() : null) + ", userId=" + (user != null ? user.getId() : null) + "}";
     }
-} 
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GroupMember other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return GroupMember.class.hashCode();
+    }
+}
@@ -0,0 +1,27 @@
+package com.paytool.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One row per pair of users, keyed with the lower id first so each pair is stored once.
+// amount is the net sum of COMPLETED transactions sent from the lower id user to the higher one.
+@Data
+@Entity
+@IdClass(PairBalanceId.class)
+@Table(name = "pair_balances", indexes = {
+    @Index(name = "idx_pair_balances_high", columnList = "user_high_id")
+})
+public class PairBalance {
+    @Id
+    @Column(name = "user_low_id")
+    private Long userLowId;
+
+    @Id
+    @Column(name = "user_high_id")
+    private Long userHighId;
+
+    @Column(nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+}
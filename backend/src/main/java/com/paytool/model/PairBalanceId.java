@@ -0,0 +1,15 @@
+package com.paytool.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PairBalanceId implements Serializable {
+    private Long userLowId;
+    private Long userHighId;
+}
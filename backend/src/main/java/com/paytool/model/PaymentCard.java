@@ -30,4 +30,25 @@ public class PaymentCard {
 
     @CreationTimestamp
     private LocalDateTime createdAt;
-} 
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PaymentCard other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return PaymentCard.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentCard{id=" + id + ", status=" + status + ", amount=" + amount + "}";
+    }
+}
@@ -11,18 +11,22 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_transactions_sender_created", columnList = "sender_id, created_at, id"),
+    @Index(name = "idx_transactions_receiver_created", columnList = "receiver_id, created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_id", nullable = false)
     private User receiver;
 
@@ -40,4 +44,25 @@ public class Transaction {
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
-} 
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Transaction other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Transaction.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction{id=" + id + ", status=" + status + ", amount=" + amount + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package com.paytool.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Running totals of a user's COMPLETED transactions, maintained by BalanceLedger
+@Data
+@Entity
+@Table(name = "user_balances")
+public class UserBalance {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_sent", nullable = false)
+    private BigDecimal totalSent = BigDecimal.ZERO;
+
+    @Column(name = "total_received", nullable = false)
+    private BigDecimal totalReceived = BigDecimal.ZERO;
+
+    // Positive when the user has received more than they sent
+    public BigDecimal getNet() {
+        return totalReceived.subtract(totalSent);
+    }
+}
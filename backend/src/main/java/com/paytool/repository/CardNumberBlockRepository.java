@@ -0,0 +1,25 @@
+package com.paytool.repository;
+
+import com.paytool.model.CardNumberBlock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface CardNumberBlockRepository extends JpaRepository<CardNumberBlock, String> {
+    @Modifying
+    @Query("UPDATE CardNumberBlock b SET b.nextHi = b.nextHi + 1 WHERE b.name = :name")
+    int advance(@Param("name") String name);
+
+    // A plain insert, unlike save(), fails on an existing row instead of merging into it
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "card_number_blocks"))
+    @Query(nativeQuery = true, value = "INSERT INTO card_number_blocks (name, next_hi) VALUES (:name, :nextHi)")
+    int create(@Param("name") String name, @Param("nextHi") Long nextHi);
+
+    @Query("SELECT b.nextHi FROM CardNumberBlock b WHERE b.name = :name")
+    Long findNextHi(@Param("name") String name);
+}
@@ -0,0 +1,26 @@
+package com.paytool.repository;
+
+import com.paytool.model.GroupEventRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface GroupEventRepository extends JpaRepository<GroupEventRecord, Long> {
+    List<GroupEventRecord> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT MAX(e.id) FROM GroupEventRecord e")
+    Long findMaxId();
+
+    // The clock created_at is stamped with
+    @Query("SELECT LOCAL DATETIME")
+    LocalDateTime databaseTime();
+
+    @Modifying
+    @Query("DELETE FROM GroupEventRecord e WHERE e.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
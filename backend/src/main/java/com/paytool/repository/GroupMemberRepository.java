@@ -3,9 +3,14 @@ package com.paytool.repository;
 import com.paytool.model.Group;
 import com.paytool.model.GroupMember;
 import com.paytool.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +18,14 @@ import java.util.Optional;
 public interface GroupMemberRepository extends JpaRepository<GroupMember, Long> {
     List<GroupMember> findByGroup(Group group);
     List<GroupMember> findByUser(User user);
+    List<GroupMember> findByGroupIdIn(Collection<Long> groupIds);
     Optional<GroupMember> findByGroupIdAndUserId(Long groupId, Long userId);
     boolean existsByGroupAndUser(Group group, User user);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM GroupMember m WHERE m.group.id = :groupId AND m.user.id = :userId")
+    Optional<GroupMember> findByGroupIdAndUserIdForUpdate(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
+    @Query("SELECT m FROM GroupMember m JOIN FETCH m.user WHERE m.group.id = :groupId ORDER BY m.id ASC")
+    List<GroupMember> findByGroupIdWithUser(@Param("groupId") Long groupId);
 } 
\ No newline at end of file
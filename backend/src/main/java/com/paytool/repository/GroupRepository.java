@@ -2,12 +2,80 @@ package com.paytool.repository;
 
 import com.paytool.model.Group;
 import com.paytool.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface GroupRepository extends JpaRepository<Group, Long> {
+    String GROUP_COUNTERS_SPACE = "payment_groups_counters";
+
     List<Group> findByLeader(User leader);
     Optional<Group> findByQrCode(String qrCode);
-} 
\ No newline at end of file
+
+    // The counter updates below are native and name a query space of their own, so Hibernate does
+    // not evict the whole Group cache region for them; callers evict the one group through
+    // EntityCacheEvictor instead.
+
+    // Takes a seat only while one is free; returns 0 when the group is full or does not exist
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = GROUP_COUNTERS_SPACE))
+    @Query(nativeQuery = true, value = "UPDATE payment_groups SET joined_count = joined_count + 1, version = version + 1 "
+        + "WHERE id = :id AND joined_count < total_people")
+    int incrementJoinedCount(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = GROUP_COUNTERS_SPACE))
+    @Query(nativeQuery = true, value = "UPDATE payment_groups SET agreed_count = agreed_count + :delta, "
+        + "version = version + 1 WHERE id = :id")
+    int adjustAgreedCount(@Param("id") Long id, @Param("delta") int delta);
+
+    // Groups created before joined_count existed got 0 from ddl-auto; every newer group counts its leader
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = GROUP_COUNTERS_SPACE))
+    @Query(nativeQuery = true, value = "UPDATE payment_groups SET joined_count = "
+        + "(SELECT COUNT(*) FROM group_members WHERE group_members.group_id = payment_groups.id) "
+        + "WHERE joined_count = 0")
+    int backfillJoinedCount();
+
+    // Same for agreed_count: the leader agrees on creation, so 0 is either pre-migration or already right
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = GROUP_COUNTERS_SPACE))
+    @Query(nativeQuery = true, value = "UPDATE payment_groups SET agreed_count = "
+        + "(SELECT COUNT(*) FROM group_members WHERE group_members.group_id = payment_groups.id "
+        + "AND group_members.status = 'AGREED') "
+        + "WHERE agreed_count = 0")
+    int backfillAgreedCount();
+
+    // Moves the group to COMPLETED once every seat is taken and agreed; returns 1 for exactly one caller
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = GROUP_COUNTERS_SPACE))
+    @Query(nativeQuery = true, value = "UPDATE payment_groups SET status = 'COMPLETED', version = version + 1 "
+        + "WHERE id = :id AND status <> 'COMPLETED' "
+        + "AND joined_count = total_people AND agreed_count = total_people")
+    int markCompletedIfReady(@Param("id") Long id);
+
+    @Query("SELECT g FROM Group g JOIN FETCH g.leader WHERE g.id = :id")
+    Optional<Group> findWithLeaderById(@Param("id") Long id);
+
+    @Query("SELECT g FROM Group g JOIN FETCH g.leader "
+        + "WHERE g.id IN (SELECT m.group.id FROM GroupMember m WHERE m.user.id = :userId) "
+        + "ORDER BY g.id ASC")
+    List<Group> findByMemberUserId(@Param("userId") Long userId);
+
+    // Keyset pages on (createdAt, id); pass a Pageable with page 0 so no OFFSET is generated
+    @Query("SELECT g FROM Group g ORDER BY g.createdAt ASC, g.id ASC")
+    List<Group> findFirstPage(Pageable pageable);
+
+    @Query("SELECT g FROM Group g WHERE g.createdAt > :createdAt OR (g.createdAt = :createdAt AND g.id > :id) "
+        + "ORDER BY g.createdAt ASC, g.id ASC")
+    List<Group> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package com.paytool.repository;
+
+import com.paytool.model.PairBalance;
+import com.paytool.model.PairBalanceId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface PairBalanceRepository extends JpaRepository<PairBalance, PairBalanceId> {
+    @Query("SELECT p FROM PairBalance p WHERE p.userLowId = :userId OR p.userHighId = :userId")
+    List<PairBalance> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT p FROM PairBalance p WHERE p.userLowId IN :userIds AND p.userHighId IN :userIds")
+    List<PairBalance> findWithin(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pair_balances"))
+    @Query(nativeQuery = true, value = "INSERT INTO pair_balances (user_low_id, user_high_id, amount) "
+        + "VALUES (:lowId, :highId, :amount) "
+        + "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)")
+    int add(@Param("lowId") Long lowId, @Param("highId") Long highId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pair_balances"))
+    @Query(nativeQuery = true, value = "DELETE FROM pair_balances WHERE user_low_id >= :fromId AND user_low_id < :toId")
+    int deleteRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pair_balances"))
+    @Query(nativeQuery = true, value = "INSERT INTO pair_balances (user_low_id, user_high_id, amount) "
+        + "SELECT LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id), "
+        + "SUM(CASE WHEN sender_id < receiver_id THEN amount ELSE -amount END) FROM transactions "
+        + "WHERE status = 'COMPLETED' AND sender_id <> receiver_id "
+        + "AND LEAST(sender_id, receiver_id) >= :fromId AND LEAST(sender_id, receiver_id) < :toId "
+        + "GROUP BY LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id)")
+    int rebuildRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
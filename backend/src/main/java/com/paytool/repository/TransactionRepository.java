@@ -1,13 +1,30 @@
 package com.paytool.repository;
 
 import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
 import com.paytool.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findBySender(User sender);
     List<Transaction> findByReceiver(User receiver);
-    List<Transaction> findBySenderOrReceiver(User user1, User user2);
-} 
\ No newline at end of file
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    boolean existsByStatus(TransactionStatus status);
+
+    // Shared locks on every transaction touching the user id range; status updates of those rows wait until they are released
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t.id FROM Transaction t WHERE (t.sender.id >= :fromId AND t.sender.id < :toId) "
+        + "OR (t.receiver.id >= :fromId AND t.receiver.id < :toId)")
+    List<Long> lockRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
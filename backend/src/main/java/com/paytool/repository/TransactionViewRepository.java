@@ -0,0 +1,156 @@
+package com.paytool.repository;
+
+import com.paytool.dto.TransactionSelection;
+import com.paytool.dto.TransactionView;
+import com.paytool.dto.UserView;
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Tuple queries that select only the columns a GraphQL query asked for. The users table is
+// joined only when sender or receiver fields beyond the id are requested, and the password
+// column is never selected.
+@Repository
+public class TransactionViewRepository {
+    private static final Set<String> TRANSACTION_COLUMNS = Set.of("amount", "status", "description", "updatedAt");
+    private static final Set<String> USER_COLUMNS = Set.of("username", "email", "name", "createdAt", "updatedAt");
+    private static final String SENDER = "sender_";
+    private static final String RECEIVER = "receiver_";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Optional<TransactionView> findById(TransactionSelection selection, Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Transaction> t = query.from(Transaction.class);
+        query.multiselect(columns(t, selection)).where(cb.equal(t.get("id"), id));
+        return entityManager.createQuery(query).getResultList().stream().findFirst().map(TransactionViewRepository::toView);
+    }
+
+    // Newest first on (createdAt, id), like TransactionRepository's pages; userId, the cursor and limit are optional
+    public List<TransactionView> findPage(TransactionSelection selection, Long userId,
+                                          LocalDateTime beforeCreatedAt, Long beforeId, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Transaction> t = query.from(Transaction.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (userId != null) {
+            where.add(cb.or(
+                cb.equal(t.get("sender").get("id"), userId),
+                cb.equal(t.get("receiver").get("id"), userId)));
+        }
+        if (beforeCreatedAt != null) {
+            where.add(cb.or(
+                cb.lessThan(t.get("createdAt"), beforeCreatedAt),
+                cb.and(cb.equal(t.get("createdAt"), beforeCreatedAt), cb.lessThan(t.get("id"), beforeId))));
+        }
+
+        query.multiselect(columns(t, selection))
+            .where(where.toArray(new Predicate[0]))
+            .orderBy(cb.desc(t.get("createdAt")), cb.desc(t.get("id")));
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit != null) {
+            typed.setMaxResults(limit);
+        }
+
+        List<TransactionView> views = new ArrayList<>();
+        for (Tuple row : typed.getResultList()) {
+            views.add(toView(row));
+        }
+        return views;
+    }
+
+    // id and createdAt are always read because cursors are built from them
+    private static List<Selection<?>> columns(Root<Transaction> t, TransactionSelection selection) {
+        List<Selection<?>> columns = new ArrayList<>();
+        columns.add(t.get("id").alias("id"));
+        columns.add(t.get("createdAt").alias("createdAt"));
+        for (String field : selection.getFields()) {
+            if (TRANSACTION_COLUMNS.contains(field)) {
+                columns.add(t.get(field).alias(field));
+            }
+        }
+        addUser(t, "sender", SENDER, selection.getSenderFields(), columns);
+        addUser(t, "receiver", RECEIVER, selection.getReceiverFields(), columns);
+        return columns;
+    }
+
+    // Only the foreign key is read when the client wants nothing but the id
+    private static void addUser(Root<Transaction> t, String association, String prefix,
+                                Set<String> fields, List<Selection<?>> columns) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        boolean needsJoin = fields.stream().anyMatch(USER_COLUMNS::contains);
+        Join<Transaction, User> user = needsJoin ? t.join(association) : null;
+        columns.add(t.get(association).get("id").alias(prefix + "id"));
+        if (user != null) {
+            for (String field : fields) {
+                if (USER_COLUMNS.contains(field)) {
+                    columns.add(user.get(field).alias(prefix + field));
+                }
+            }
+        }
+    }
+
+    private static TransactionView toView(Tuple row) {
+        TransactionView view = new TransactionView();
+        for (TupleElement<?> element : row.getElements()) {
+            String alias = element.getAlias();
+            Object value = row.get(element);
+            if (alias.startsWith(SENDER)) {
+                view.setSender(setUserColumn(view.getSender(), alias.substring(SENDER.length()), value));
+                view.setSenderId(view.getSender().getId());
+            } else if (alias.startsWith(RECEIVER)) {
+                view.setReceiver(setUserColumn(view.getReceiver(), alias.substring(RECEIVER.length()), value));
+                view.setReceiverId(view.getReceiver().getId());
+            } else {
+                switch (alias) {
+                    case "id" -> view.setId((Long) value);
+                    case "amount" -> view.setAmount((BigDecimal) value);
+                    case "status" -> view.setStatus((TransactionStatus) value);
+                    case "description" -> view.setDescription((String) value);
+                    case "createdAt" -> view.setCreatedAt((LocalDateTime) value);
+                    case "updatedAt" -> view.setUpdatedAt((LocalDateTime) value);
+                    default -> throw new IllegalStateException("Unexpected column " + alias);
+                }
+            }
+        }
+        return view;
+    }
+
+    private static UserView setUserColumn(UserView user, String column, Object value) {
+        UserView target = user != null ? user : new UserView();
+        switch (column) {
+            case "id" -> target.setId((Long) value);
+            case "username" -> target.setUsername((String) value);
+            case "email" -> target.setEmail((String) value);
+            case "name" -> target.setName((String) value);
+            case "createdAt" -> target.setCreatedAt((LocalDateTime) value);
+            case "updatedAt" -> target.setUpdatedAt((LocalDateTime) value);
+            default -> throw new IllegalStateException("Unexpected column " + column);
+        }
+        return target;
+    }
+}
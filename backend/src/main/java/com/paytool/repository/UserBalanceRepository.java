@@ -0,0 +1,41 @@
+package com.paytool.repository;
+
+import com.paytool.model.UserBalance;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+
+// Native statements name their table as query space; without it Hibernate evicts every cache region
+public interface UserBalanceRepository extends JpaRepository<UserBalance, Long> {
+    // Upsert so the first transaction of a user needs no separate insert race
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_balances"))
+    @Query(nativeQuery = true, value = "INSERT INTO user_balances (user_id, total_sent, total_received) "
+        + "VALUES (:userId, :sent, :received) "
+        + "ON DUPLICATE KEY UPDATE total_sent = total_sent + VALUES(total_sent), "
+        + "total_received = total_received + VALUES(total_received)")
+    int add(@Param("userId") Long userId, @Param("sent") BigDecimal sent, @Param("received") BigDecimal received);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_balances"))
+    @Query(nativeQuery = true, value = "DELETE FROM user_balances WHERE user_id >= :fromId AND user_id < :toId")
+    int deleteRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_balances"))
+    @Query(nativeQuery = true, value = "INSERT INTO user_balances (user_id, total_sent, total_received) "
+        + "SELECT x.user_id, SUM(x.sent), SUM(x.received) FROM ("
+        + "SELECT sender_id AS user_id, amount AS sent, 0 AS received FROM transactions "
+        + "WHERE status = 'COMPLETED' AND sender_id >= :fromId AND sender_id < :toId "
+        + "UNION ALL "
+        + "SELECT receiver_id AS user_id, 0 AS sent, amount AS received FROM transactions "
+        + "WHERE status = 'COMPLETED' AND receiver_id >= :fromId AND receiver_id < :toId"
+        + ") x GROUP BY x.user_id")
+    int rebuildRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
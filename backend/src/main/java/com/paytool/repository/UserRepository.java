@@ -1,8 +1,13 @@
 package com.paytool.repository;
 
 import com.paytool.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +15,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
-} 
\ No newline at end of file
+
+    // Keyset pages on (createdAt, id); pass a Pageable with page 0 so no OFFSET is generated
+    @Query("SELECT u FROM User u ORDER BY u.createdAt ASC, u.id ASC")
+    List<User> findFirstPage(Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id) "
+        + "ORDER BY u.createdAt ASC, u.id ASC")
+    List<User> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+}
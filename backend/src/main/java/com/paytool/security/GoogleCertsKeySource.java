@@ -0,0 +1,39 @@
+package com.paytool.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.List;
+
+// Downloads Google's signing certificates over one transport kept for the life of the application
+@Component
+@ConditionalOnProperty(name = "paytool.google.key-source", havingValue = "google", matchIfMissing = true)
+public class GoogleCertsKeySource implements GoogleKeySource {
+    private final GooglePublicKeysManager keysManager;
+
+    public GoogleCertsKeySource() {
+        try {
+            keysManager = new GooglePublicKeysManager.Builder(
+                    GoogleNetHttpTransport.newTrustedTransport(),
+                    GsonFactory.getDefaultInstance())
+                .build();
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Could not create the HTTP transport for Google certificates", e);
+        }
+    }
+
+    // GoogleTokenVerifier serializes calls, so the manager is never refreshed concurrently
+    @Override
+    public GoogleSigningKeys fetch() throws GeneralSecurityException, IOException {
+        keysManager.refresh();
+        return new GoogleSigningKeys(
+            List.copyOf(keysManager.getPublicKeys()),
+            Instant.ofEpochMilli(keysManager.getExpirationTimeMilliseconds()));
+    }
+}
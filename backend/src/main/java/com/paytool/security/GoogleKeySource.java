@@ -0,0 +1,11 @@
+package com.paytool.security;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+// Where GoogleTokenVerifier gets signing keys from. The default reads Google's published
+// certificates; a stand-in with locally generated keys can replace it when no network is
+// available, by setting paytool.google.key-source to anything but "google" and providing a bean.
+public interface GoogleKeySource {
+    GoogleSigningKeys fetch() throws GeneralSecurityException, IOException;
+}
@@ -0,0 +1,14 @@
+package com.paytool.security;
+
+import lombok.Value;
+
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.List;
+
+// Google's current ID token signing keys and when the published set stops being valid
+@Value
+public class GoogleSigningKeys {
+    List<PublicKey> keys;
+    Instant expiresAt;
+}
@@ -0,0 +1,138 @@
+package com.paytool.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Shared Google ID token verifier. Signing keys are held in memory and replaced by a background
+// thread shortly before the published set expires, so logins never wait for a certificate
+// download once the first set is loaded. Claims are checked locally: issuer, audience, and
+// issued/expiry time with clock skew.
+@Slf4j
+@Component
+public class GoogleTokenVerifier {
+    private static final List<String> ISSUERS = List.of("accounts.google.com", "https://accounts.google.com");
+
+    private final GoogleKeySource keySource;
+    private final List<String> audience;
+    private final long refreshAheadMillis;
+    private final long retryMillis;
+    private final long clockSkewSeconds;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "google-key-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean extraRefreshQueued = new AtomicBoolean();
+
+    private volatile GoogleSigningKeys signingKeys;
+    private volatile Instant lastAttempt = Instant.EPOCH;
+
+    public GoogleTokenVerifier(
+            GoogleKeySource keySource,
+            @Value("${spring.security.oauth2.client.registration.google.client-id}") String clientId,
+            @Value("${paytool.google.refresh-ahead-ms:300000}") long refreshAheadMillis,
+            @Value("${paytool.google.retry-ms:30000}") long retryMillis,
+            @Value("${paytool.google.clock-skew-seconds:300}") long clockSkewSeconds) {
+        this.keySource = keySource;
+        this.audience = List.of(clientId);
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.retryMillis = retryMillis;
+        this.clockSkewSeconds = clockSkewSeconds;
+    }
+
+    // The first download also runs in the background, so startup does not depend on Google
+    @PostConstruct
+    public void start() {
+        refresher.execute(this::refresh);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public Optional<GoogleIdToken.Payload> verify(String idTokenString) {
+        GoogleIdToken idToken;
+        try {
+            idToken = GoogleIdToken.parse(GsonFactory.getDefaultInstance(), idTokenString);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+        if (!idToken.verifyIssuer(ISSUERS)
+                || !idToken.verifyAudience(audience)
+                || !idToken.verifyTime(System.currentTimeMillis(), clockSkewSeconds)) {
+            return Optional.empty();
+        }
+
+        for (PublicKey key : currentKeys().getKeys()) {
+            try {
+                if (idToken.verifySignature(key)) {
+                    return Optional.of(idToken.getPayload());
+                }
+            } catch (Exception e) {
+                // A key of another type; try the next one
+            }
+        }
+        // Google may have started signing with a key we have not seen yet; fetch again, at most once per retry interval
+        if (Duration.between(lastAttempt, Instant.now()).toMillis() >= retryMillis
+                && extraRefreshQueued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                extraRefreshQueued.set(false);
+                fetchKeys();
+            });
+        }
+        return Optional.empty();
+    }
+
+    // Only the very first logins after startup can find no keys yet; they load them once, together
+    private GoogleSigningKeys currentKeys() {
+        GoogleSigningKeys keys = signingKeys;
+        if (keys != null) {
+            return keys;
+        }
+        synchronized (this) {
+            if (signingKeys == null) {
+                fetchKeys();
+            }
+            if (signingKeys == null) {
+                throw new IllegalStateException("Google signing keys are not available");
+            }
+            return signingKeys;
+        }
+    }
+
+    // Reschedules itself for refreshAheadMillis before the new set expires, or retries soon after a failure
+    private void refresh() {
+        long nextDelay = fetchKeys()
+            ? Math.max(retryMillis, signingKeys.getExpiresAt().toEpochMilli() - System.currentTimeMillis() - refreshAheadMillis)
+            : retryMillis;
+        refresher.schedule(this::refresh, nextDelay, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns false when the download failed; the previous keys stay in use until the retry succeeds
+    private synchronized boolean fetchKeys() {
+        lastAttempt = Instant.now();
+        try {
+            signingKeys = keySource.fetch();
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not refresh Google signing keys", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.paytool.security;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+// The caller behind a verified token; the subject of our tokens is the user's email
+@Value
+public class JwtPrincipal {
+    String email;
+    Instant expiresAt;
+}
@@ -1,13 +1,20 @@
 package com.paytool.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.paytool.model.User;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 @Component
 public class JwtTokenProvider {
@@ -18,9 +25,38 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    // Built once from the secret; signing and parsing both use the UTF-8 bytes of jwt.secret
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Tokens that already passed signature verification, each kept only until the token expires
+    private Cache<String, JwtPrincipal> verified;
+
     @PostConstruct
-    public void logSecret() {
-        System.out.println("JWT Secret in use: " + jwtSecret);
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String token, JwtPrincipal principal, long currentTime) {
+                        return nanosUntil(principal.getExpiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return nanosUntil(principal.getExpiresAt());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(User user) {
@@ -31,25 +67,44 @@ public class JwtTokenProvider {
                 .setSubject(user.getEmail())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, jwtSecret.getBytes(StandardCharsets.UTF_8))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+    // Verifies the signature and expiry at most once per token; later calls are a map lookup
+    public Optional<JwtPrincipal> authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        JwtPrincipal principal = verified.getIfPresent(token);
+        if (principal != null) {
+            return Optional.of(principal);
+        }
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return Optional.empty();
+            }
+            principal = new JwtPrincipal(claims.getSubject(), expiration.toInstant());
+            verified.put(token, principal);
+            return Optional.of(principal);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
 
-        return claims.getSubject();
+    public String getEmailFromToken(String token) {
+        return authenticate(token)
+                .map(JwtPrincipal::getEmail)
+                .orElseThrow(() -> new JwtException("Invalid token"));
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return authenticate(token).isPresent();
+    }
+
+    private static long nanosUntil(Instant expiresAt) {
+        return Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis()) * 1_000_000L;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.paytool.security;
+
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Verifies the token from the connection_init payload once per WebSocket connection and keeps
+// the principal on the session. Every operation on the connection then finds it in the GraphQL
+// context under JwtPrincipal.class. Connections without a valid token stay anonymous.
+@Component
+public class JwtWebSocketInterceptor implements WebSocketGraphQlInterceptor {
+    private static final String SESSION_ATTRIBUTE = JwtPrincipal.class.getName();
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public JwtWebSocketInterceptor(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo sessionInfo, Map<String, Object> payload) {
+        Object token = payload.get("authToken");
+        if (token instanceof String value) {
+            jwtTokenProvider.authenticate(value)
+                .ifPresent(principal -> sessionInfo.getAttributes().put(SESSION_ATTRIBUTE, principal));
+        }
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (request instanceof WebSocketGraphQlRequest webSocketRequest) {
+            Object principal = webSocketRequest.getSessionInfo().getAttributes().get(SESSION_ATTRIBUTE);
+            if (principal instanceof JwtPrincipal jwtPrincipal
+                    && jwtPrincipal.getExpiresAt().isAfter(Instant.now())) {
+                request.configureExecutionInput((input, builder) ->
+                    builder.graphQLContext(Map.<Object, Object>of(JwtPrincipal.class, jwtPrincipal)).build());
+            }
+        }
+        return chain.next(request);
+    }
+}
@@ -0,0 +1,114 @@
+package com.paytool.service;
+
+import com.paytool.dto.PairBalanceView;
+import com.paytool.model.PairBalance;
+import com.paytool.model.Transaction;
+import com.paytool.model.UserBalance;
+import com.paytool.repository.PairBalanceRepository;
+import com.paytool.repository.UserBalanceRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user and per-pair totals of COMPLETED transactions. Callers apply a transaction once
+// when it enters COMPLETED and reverse it if it leaves, in the same database transaction.
+@Component
+public class BalanceLedger {
+    private final UserBalanceRepository userBalanceRepository;
+    private final PairBalanceRepository pairBalanceRepository;
+    // Bumped after every committed ledger change on this node; results derived from the ledger are cached under it
+    private final AtomicLong version = new AtomicLong();
+
+    public BalanceLedger(UserBalanceRepository userBalanceRepository, PairBalanceRepository pairBalanceRepository) {
+        this.userBalanceRepository = userBalanceRepository;
+        this.pairBalanceRepository = pairBalanceRepository;
+    }
+
+    public void apply(Transaction transaction) {
+        add(transaction, transaction.getAmount());
+    }
+
+    public void reverse(Transaction transaction) {
+        add(transaction, transaction.getAmount().negate());
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Bumps the version once the current transaction commits, or right away outside a transaction
+    public void markChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<PairBalance> pairBalancesWithin(Collection<Long> userIds) {
+        return pairBalanceRepository.findWithin(userIds);
+    }
+
+    @Transactional(readOnly = true)
+    public UserBalance balance(Long userId) {
+        return userBalanceRepository.findById(userId).orElseGet(() -> {
+            UserBalance empty = new UserBalance();
+            empty.setUserId(userId);
+            return empty;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<PairBalanceView> pairBalances(Long userId) {
+        List<PairBalance> rows = pairBalanceRepository.findByUserId(userId);
+        List<PairBalanceView> result = new ArrayList<>(rows.size());
+        for (PairBalance row : rows) {
+            // The stored amount flows from the lower id to the higher id
+            if (row.getUserLowId().equals(userId)) {
+                result.add(new PairBalanceView(userId, row.getUserHighId(), row.getAmount().negate()));
+            } else {
+                result.add(new PairBalanceView(userId, row.getUserLowId(), row.getAmount()));
+            }
+        }
+        return result;
+    }
+
+    // Reading the ids of the lazy sender/receiver proxies does not load the users.
+    // User rows are upserted in ascending id order, so two transfers between the same pair in
+    // opposite directions lock them in the same order and cannot deadlock.
+    private void add(Transaction transaction, BigDecimal amount) {
+        Long senderId = transaction.getSender().getId();
+        Long receiverId = transaction.getReceiver().getId();
+        markChanged();
+
+        if (senderId <= receiverId) {
+            userBalanceRepository.add(senderId, amount, BigDecimal.ZERO);
+            userBalanceRepository.add(receiverId, BigDecimal.ZERO, amount);
+        } else {
+            userBalanceRepository.add(receiverId, BigDecimal.ZERO, amount);
+            userBalanceRepository.add(senderId, amount, BigDecimal.ZERO);
+        }
+
+        if (senderId.equals(receiverId)) {
+            return;
+        }
+        if (senderId < receiverId) {
+            pairBalanceRepository.add(senderId, receiverId, amount);
+        } else {
+            pairBalanceRepository.add(receiverId, senderId, amount.negate());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.paytool.service;
+
+import com.paytool.repository.PairBalanceRepository;
+import com.paytool.repository.TransactionRepository;
+import com.paytool.repository.UserBalanceRepository;
+import com.paytool.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Recomputes user_balances and pair_balances from transaction history. The user id space is
+// split into ranges, and each range is deleted and re-aggregated in its own transaction on a
+// small pool. The aggregation runs in the database; only the ids of the range's transactions
+// reach the JVM. Each range first takes shared locks on those transactions, which is what
+// updateTransactionStatus locks exclusively before it touches the ledger, so a status change
+// either commits before the range is rebuilt or waits until it is.
+@Slf4j
+@Component
+public class BalanceRebuildJob {
+    private final UserRepository userRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserBalanceRepository userBalanceRepository;
+    private final PairBalanceRepository pairBalanceRepository;
+    private final BalanceLedger balanceLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final long rangeSize;
+
+    public BalanceRebuildJob(
+            UserRepository userRepository,
+            TransactionRepository transactionRepository,
+            UserBalanceRepository userBalanceRepository,
+            PairBalanceRepository pairBalanceRepository,
+            BalanceLedger balanceLedger,
+            TransactionTemplate transactionTemplate,
+            @Value("${paytool.ledger.rebuild-parallelism:4}") int parallelism,
+            @Value("${paytool.ledger.rebuild-range-size:10000}") long rangeSize) {
+        this.userRepository = userRepository;
+        this.transactionRepository = transactionRepository;
+        this.userBalanceRepository = userBalanceRepository;
+        this.pairBalanceRepository = pairBalanceRepository;
+        this.balanceLedger = balanceLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+    }
+
+    // Disabled unless a cron expression is configured
+    @Scheduled(cron = "${paytool.ledger.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    // Returns the number of balance rows written
+    public long rebuild() {
+        Long maxId = userRepository.findMaxId();
+        if (maxId == null) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "balance-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> ranges = new ArrayList<>();
+            for (long fromId = 0; fromId <= maxId; fromId += rangeSize) {
+                long from = fromId;
+                long to = fromId + rangeSize;
+                ranges.add(executor.submit(() -> rebuildRange(from, to)));
+            }
+
+            long written = 0;
+            for (Future<Integer> range : ranges) {
+                written += range.get();
+            }
+            log.info("Rebuilt balance ledger: {} rows in {} ranges", written, ranges.size());
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Balance rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Balance rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int rebuildRange(long fromId, long toId) {
+        Integer written = transactionTemplate.execute(tx -> {
+            transactionRepository.lockRange(fromId, toId);
+            userBalanceRepository.deleteRange(fromId, toId);
+            pairBalanceRepository.deleteRange(fromId, toId);
+            balanceLedger.markChanged();
+            return userBalanceRepository.rebuildRange(fromId, toId) + pairBalanceRepository.rebuildRange(fromId, toId);
+        });
+        return written != null ? written : 0;
+    }
+}
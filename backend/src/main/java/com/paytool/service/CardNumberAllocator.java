@@ -0,0 +1,145 @@
+package com.paytool.service;
+
+import com.paytool.repository.CardNumberBlockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out 16-digit card numbers: issuer prefix, account number, Luhn check digit.
+// Account numbers come from blocks reserved in card_number_blocks (hi/lo), so nodes never
+// overlap; within a block numbers are taken with a single getAndIncrement.
+@Component
+public class CardNumberAllocator {
+    private static final String SEQUENCE = "card";
+    private static final int CARD_LENGTH = 16;
+
+    private final CardNumberBlockRepository blockRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final String issuerPrefix;
+    private final long blockSize;
+    private final long maxAccount;
+
+    private final AtomicReference<Block> current;
+    // Only taken when a block runs out, so one thread reserves the next block while the rest wait for it
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public CardNumberAllocator(
+            CardNumberBlockRepository blockRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${paytool.cards.issuer-prefix:900000}") String issuerPrefix,
+            @Value("${paytool.cards.block-size:1000}") long blockSize) {
+        if (!issuerPrefix.matches("\\d{1,14}")) {
+            throw new IllegalArgumentException("paytool.cards.issuer-prefix must be 1 to 14 digits");
+        }
+        this.blockRepository = blockRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        // The block is committed on its own, even when the card insert that asked for it rolls back
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.issuerPrefix = issuerPrefix;
+        this.blockSize = blockSize;
+        this.maxAccount = pow10(CARD_LENGTH - 1 - issuerPrefix.length());
+        // Starts out exhausted so the first call reserves a block
+        this.current = new AtomicReference<>(new Block(-1, blockSize));
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long lo = block.next.getAndIncrement();
+            if (lo < blockSize) {
+                return format(block.hi * blockSize + lo);
+            }
+            refill(block);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            // Another thread may have installed a fresh block while this one waited
+            if (current.get() == exhausted) {
+                current.set(new Block(reserveHi()));
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long reserveHi() {
+        Long hi = reserveTransaction.execute(tx -> {
+            if (blockRepository.advance(SEQUENCE) == 0) {
+                return null;
+            }
+            return blockRepository.findNextHi(SEQUENCE) - 1;
+        });
+        if (hi == null) {
+            hi = createSequence();
+        }
+        if ((hi + 1) * blockSize > maxAccount) {
+            throw new IllegalStateException("Card number space for prefix " + issuerPrefix + " is exhausted");
+        }
+        return hi;
+    }
+
+    // First block ever: create the row already advanced past block 0, or join a node that just did
+    private long createSequence() {
+        try {
+            reserveTransaction.executeWithoutResult(tx -> blockRepository.create(SEQUENCE, 1L));
+            return 0L;
+        } catch (DataIntegrityViolationException e) {
+            return reserveHi();
+        }
+    }
+
+    private String format(long account) {
+        String payload = issuerPrefix + String.format("%0" + (CARD_LENGTH - 1 - issuerPrefix.length()) + "d", account);
+        return payload + luhnCheckDigit(payload);
+    }
+
+    static int luhnCheckDigit(String payload) {
+        int sum = 0;
+        // Doubling starts from the rightmost payload digit, which sits next to the check digit
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static final class Block {
+        final long hi;
+        final AtomicLong next;
+
+        Block(long hi) {
+            this(hi, 0);
+        }
+
+        Block(long hi, long start) {
+            this.hi = hi;
+            this.next = new AtomicLong(start);
+        }
+    }
+}
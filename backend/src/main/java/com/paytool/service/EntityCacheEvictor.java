@@ -0,0 +1,53 @@
+package com.paytool.service;
+
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Evicts single second-level cache entries for changes Hibernate does not see: native updates,
+// which it cannot attribute to an entity id, and writes made by other nodes. Inside a transaction
+// the entry is dropped right away, so the rest of the transaction reads the new row, and again
+// when the transaction ends, so no reader that raced with the update leaves the old row cached.
+@Component
+public class EntityCacheEvictor {
+    private static final String MEMBERS_ROLE = Group.class.getName() + ".members";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EntityCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evictGroup(Long groupId) {
+        evict(() -> entityManagerFactory.getCache().evict(Group.class, groupId));
+    }
+
+    // For bulk updates that touch groups without knowing which
+    public void evictGroups() {
+        entityManagerFactory.getCache().evict(Group.class);
+    }
+
+    // The group's member list is cached apart from the members, and goes stale the same way
+    public void evictMember(Long groupId, Long memberId) {
+        evict(() -> {
+            entityManagerFactory.getCache().evict(GroupMember.class, memberId);
+            entityManagerFactory.getCache().unwrap(Cache.class).evictCollectionData(MEMBERS_ROLE, groupId);
+        });
+    }
+
+    private void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -1,18 +1,13 @@
 package com.paytool.service;
 
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.paytool.model.User;
 import com.paytool.repository.UserRepository;
+import com.paytool.security.GoogleTokenVerifier;
 import com.paytool.security.JwtTokenProvider;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -22,31 +17,21 @@ public class GoogleAuthService {
 
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
-    private final String googleClientId;
+    private final GoogleTokenVerifier googleTokenVerifier;
 
     public GoogleAuthService(
             UserRepository userRepository,
             JwtTokenProvider jwtTokenProvider,
-            @Value("${spring.security.oauth2.client.registration.google.client-id}") String googleClientId) {
+            GoogleTokenVerifier googleTokenVerifier) {
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
-        this.googleClientId = googleClientId;
+        this.googleTokenVerifier = googleTokenVerifier;
     }
 
     @Transactional
     public Map<String, Object> authenticateGoogleUser(String idTokenString) throws Exception {
-        GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(),
-                GsonFactory.getDefaultInstance())
-            .setAudience(Collections.singletonList(googleClientId))
-            .build();
-
-        GoogleIdToken idToken = verifier.verify(idTokenString);
-        if (idToken == null) {
-            throw new IllegalArgumentException("Invalid ID token.");
-        }
-
-        Payload payload = idToken.getPayload();
+        Payload payload = googleTokenVerifier.verify(idTokenString)
+            .orElseThrow(() -> new IllegalArgumentException("Invalid ID token."));
         String email = payload.getEmail();
         String name = (String) payload.get("name");
         String picture = (String) payload.get("picture");
@@ -0,0 +1,10 @@
+package com.paytool.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GroupChangedEvent {
+    private Long groupId;
+}
@@ -0,0 +1,15 @@
+package com.paytool.service;
+
+import com.paytool.model.GroupEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Reference to a changed entity. Nodes that receive it reload the current state,
+// so two events for the same entity are interchangeable and may be collapsed.
+@Data
+@AllArgsConstructor
+public class GroupEvent {
+    private GroupEventType type;
+    private Long groupId;
+    private Long entityId;
+}
@@ -0,0 +1,17 @@
+package com.paytool.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Carries group events between backend nodes. GroupPublisher delivers to local subscribers itself
+// after commit; GroupEventDispatcher hands every change to the bus to reach other nodes.
+public interface GroupEventBus {
+
+    // Called inside the transaction that made the change, just before it commits, or straight away
+    // when there is none. Implementations that store events write them in that transaction, so a
+    // committed change always has its event and a rolled-back one never does.
+    void publish(GroupEvent event);
+
+    // Receives de-duplicated batches of events that originated on other nodes
+    void setRemoteListener(Consumer<List<GroupEvent>> listener);
+}
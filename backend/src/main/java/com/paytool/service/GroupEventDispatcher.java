@@ -0,0 +1,93 @@
+package com.paytool.service;
+
+import com.paytool.model.GroupEventType;
+import com.paytool.repository.GroupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Forwards group events to subscribers only after the publishing transaction commits, and
+// records them on the event bus before it commits. Group snapshots are coalesced: the first change to a group opens a short window, later
+// changes inside it are absorbed, and one fresh snapshot is read and published when it closes.
+@Slf4j
+@Component
+public class GroupEventDispatcher {
+    private final GroupPublisher groupPublisher;
+    private final GroupEventBus eventBus;
+    private final GroupRepository groupRepository;
+    private final long coalesceWindowMillis;
+    private final Set<Long> pendingGroups = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "group-event-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GroupEventDispatcher(
+            GroupPublisher groupPublisher,
+            GroupEventBus eventBus,
+            GroupRepository groupRepository,
+            @Value("${paytool.subscriptions.coalesce-window-ms:100}") long coalesceWindowMillis) {
+        this.groupPublisher = groupPublisher;
+        this.eventBus = eventBus;
+        this.groupRepository = groupRepository;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        Long groupId = event.getGroupId();
+        if (coalesceWindowMillis <= 0) {
+            publishSnapshot(groupId);
+            return;
+        }
+        if (pendingGroups.add(groupId)) {
+            scheduler.schedule(() -> flush(groupId), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        groupPublisher.publishMemberStatus(event.getGroupId().toString(), event.getMember());
+    }
+
+    // Other nodes hear about every change, uncoalesced; they reload the entity and collapse duplicates
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void recordGroupChanged(GroupChangedEvent event) {
+        eventBus.publish(new GroupEvent(GroupEventType.GROUP, event.getGroupId(), event.getGroupId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void recordMemberChanged(MemberChangedEvent event) {
+        eventBus.publish(new GroupEvent(GroupEventType.MEMBER, event.getGroupId(), event.getMember().getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void flush(Long groupId) {
+        // Leave the window before reading, so a change committed during the read opens a new one
+        pendingGroups.remove(groupId);
+        try {
+            publishSnapshot(groupId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish coalesced update for group {}", groupId, e);
+        }
+    }
+
+    private void publishSnapshot(Long groupId) {
+        groupRepository.findById(groupId)
+            .ifPresent(group -> groupPublisher.publishGroupStatus(groupId.toString(), group));
+    }
+}
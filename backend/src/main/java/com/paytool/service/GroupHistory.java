@@ -0,0 +1,80 @@
+package com.paytool.service;
+
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.dto.MemberDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Recent subscription events of one group, kept so a reconnecting client can resume from a version.
+// Versioned emissions for the group run on its serial emitter, which stamps, records and emits
+// each event in one step so the retained events and the live stream agree on ordering.
+class GroupHistory {
+    private final SerialExecutor emitter = new SerialExecutor();
+    private final MemberDelta[] deltas;
+    private int next;
+    private int size;
+    // Deltas with a version at or below the floor may have been dropped
+    private long floor;
+    private GroupSnapshot latestSnapshot;
+
+    GroupHistory(int capacity, long floor) {
+        this.deltas = new MemberDelta[capacity];
+        this.floor = floor;
+    }
+
+    Executor emitter() {
+        return emitter;
+    }
+
+    synchronized void appendDelta(MemberDelta delta) {
+        if (size == deltas.length) {
+            floor = deltas[next].getVersion();
+        } else {
+            size++;
+        }
+        deltas[next] = delta;
+        next = (next + 1) % deltas.length;
+    }
+
+    // Never moves backwards, even if a stale snapshot is handed in
+    synchronized void setLatestSnapshot(GroupSnapshot snapshot) {
+        if (latestSnapshot == null || snapshot.getVersion() > latestSnapshot.getVersion()) {
+            latestSnapshot = snapshot;
+        }
+    }
+
+    synchronized GroupSnapshot getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+    // A change went by while nobody listened; resuming clients have to read the current state
+    synchronized void dropSnapshot() {
+        latestSnapshot = null;
+    }
+
+    synchronized void dropDeltas(long version) {
+        floor = version;
+        size = 0;
+        next = 0;
+        Arrays.fill(deltas, null);
+    }
+
+    // Deltas newer than afterSeq, oldest first; null when some of them are no longer retained
+    synchronized List<MemberDelta> deltasAfter(long afterSeq) {
+        if (afterSeq < floor) {
+            return null;
+        }
+        List<MemberDelta> result = new ArrayList<>();
+        int start = (next - size + deltas.length) % deltas.length;
+        for (int i = 0; i < size; i++) {
+            MemberDelta delta = deltas[(start + i) % deltas.length];
+            if (delta.getVersion() > afterSeq) {
+                result.add(delta);
+            }
+        }
+        return result;
+    }
+}
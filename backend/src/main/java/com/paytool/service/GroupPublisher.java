@@ -1,69 +1,324 @@
 package com.paytool.service;
 
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.dto.MemberDelta;
 import com.paytool.model.Group;
+import com.paytool.model.GroupEventType;
 import com.paytool.model.GroupMember;
+import com.paytool.repository.GroupMemberRepository;
+import com.paytool.repository.GroupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.ConnectableFlux;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class GroupPublisher {
-    private final Map<String, Sinks.Many<Group>> groupSinks = new ConcurrentHashMap<>();
-    private final Map<String, Sinks.Many<GroupMember>> memberSinks = new ConcurrentHashMap<>();
+    private final SinkRegistry<Group> groupSinks;
+    private final SinkRegistry<GroupMember> memberSinks;
+    private final SinkRegistry<GroupSnapshot> snapshotSinks;
+    private final SinkRegistry<MemberDelta> deltaSinks;
+    // Versions only need to grow per group; one node-wide counter does that without per-group state.
+    // They mean nothing on another node or after a restart, so the cursors handed to clients carry
+    // the epoch of this run and a cursor from any other epoch is answered with the current state.
+    private final AtomicLong versions = new AtomicLong();
+    private final String epoch = UUID.randomUUID().toString();
+    // Resume history per group, least recently used groups are dropped first
+    private final Map<String, GroupHistory> histories;
+    private final int historySize;
+    private final int bufferSize;
+    private final GroupSnapshotFactory snapshotFactory;
+    private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final Counter publishedGroups;
+    private final Counter publishedMembers;
+    private final Counter remoteGroups;
+    private final Counter remoteMembers;
+
+    public GroupPublisher(
+            GroupSnapshotFactory snapshotFactory,
+            GroupEventBus eventBus,
+            GroupRepository groupRepository,
+            GroupMemberRepository groupMemberRepository,
+            EntityCacheEvictor entityCacheEvictor,
+            MeterRegistry meterRegistry,
+            @Value("${paytool.subscriptions.buffer-size:256}") int bufferSize,
+            @Value("${paytool.subscriptions.group-overflow:LATEST}") OverflowPolicy groupOverflow,
+            @Value("${paytool.subscriptions.member-overflow:DROP_OLDEST}") OverflowPolicy memberOverflow,
+            @Value("${paytool.subscriptions.history-size:64}") int historySize,
+            @Value("${paytool.subscriptions.history-groups:10000}") int historyGroups) {
+        this.groupSinks = new SinkRegistry<>(bufferSize, groupOverflow);
+        this.memberSinks = new SinkRegistry<>(bufferSize, memberOverflow);
+        this.snapshotSinks = new SinkRegistry<>(bufferSize, groupOverflow);
+        this.deltaSinks = new SinkRegistry<>(bufferSize, memberOverflow);
+        registerGauges(meterRegistry, "group", groupSinks);
+        registerGauges(meterRegistry, "member", memberSinks);
+        registerGauges(meterRegistry, "group-snapshot", snapshotSinks);
+        registerGauges(meterRegistry, "member-delta", deltaSinks);
+        this.histories = Collections.synchronizedMap(new LinkedHashMap<String, GroupHistory>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GroupHistory> eldest) {
+                return size() > historyGroups;
+            }
+        });
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.snapshotFactory = snapshotFactory;
+        this.groupRepository = groupRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.publishedGroups = eventCounter(meterRegistry, "paytool.events.published", GroupEventType.GROUP);
+        this.publishedMembers = eventCounter(meterRegistry, "paytool.events.published", GroupEventType.MEMBER);
+        this.remoteGroups = eventCounter(meterRegistry, "paytool.events.received", GroupEventType.GROUP);
+        this.remoteMembers = eventCounter(meterRegistry, "paytool.events.received", GroupEventType.MEMBER);
+        eventBus.setRemoteListener(this::deliverRemote);
+    }
 
     public Flux<Group> getGroupStatusFlux(String groupId) {
-        System.out.println("Creating group flux for groupId: " + groupId);
-        return getOrCreateGroupSink(groupId).asFlux()
-            .doOnSubscribe(s -> System.out.println("Group subscription started for: " + groupId))
-            .doOnNext(g -> System.out.println("Group update emitted for: " + groupId + ", status: " + g.getStatus()))
-            .doOnError(e -> System.err.println("Error in group flux for " + groupId + ": " + e.getMessage()))
-            .doOnComplete(() -> System.out.println("Group subscription completed for: " + groupId));
+        return groupSinks.subscribe(groupId);
     }
 
     public Flux<GroupMember> getMemberStatusFlux(String groupId) {
-        System.out.println("Creating member flux for groupId: " + groupId);
-        return getOrCreateMemberSink(groupId).asFlux()
-            .doOnSubscribe(s -> System.out.println("Member subscription started for: " + groupId))
-            .doOnNext(m -> System.out.println("Member update emitted for: " + groupId + ", member: " + m.getId()))
-            .doOnError(e -> System.err.println("Error in member flux for " + groupId + ": " + e.getMessage()))
-            .doOnComplete(() -> System.out.println("Member subscription completed for: " + groupId));
+        return memberSinks.subscribe(groupId);
     }
 
-    public void publishGroupStatus(String groupId, Group group) {
-        System.out.println("Publishing group status for groupId: " + groupId + ", status: " + group.getStatus());
-        Sinks.Many<Group> sink = getOrCreateGroupSink(groupId);
-        Sinks.EmitResult result = sink.tryEmitNext(group);
-        if (result.isFailure()) {
-            System.err.println("Failed to emit group update for " + groupId + ": " + result);
-        } else {
-            System.out.println("Successfully emitted group update for " + groupId);
+    // The resume point for a payload version, as clients pass it back in afterSeq
+    public String cursor(long version) {
+        return epoch + ":" + version;
+    }
+
+    // With afterSeq the subscriber first gets what it missed since that cursor: the latest
+    // snapshot if it is newer, or a freshly read one when the cursor is unknown on this node.
+    public Flux<GroupSnapshot> getGroupSnapshotFlux(String groupId, String afterSeq) {
+        if (afterSeq == null) {
+            return Flux.defer(() -> {
+                history(groupId);
+                return snapshotSinks.subscribe(groupId);
+            });
         }
+        return Flux.defer(() -> {
+            GroupHistory history = history(groupId);
+            // Connect to the live stream before reading history so nothing falls in between
+            ConnectableFlux<GroupSnapshot> live = snapshotSinks.subscribe(groupId).replay(bufferSize);
+            Disposable connection = live.connect();
+
+            long current = versions.get();
+            Long after = version(afterSeq, current);
+            GroupSnapshot latest = history.getLatestSnapshot();
+            List<GroupSnapshot> replay = new ArrayList<>(1);
+            long resumeFrom = current;
+            if (latest == null || after == null) {
+                snapshotFactory.snapshot(Long.valueOf(groupId)).ifPresent(snapshot -> replay.add(snapshot.withVersion(current)));
+            } else if (latest.getVersion() > after) {
+                replay.add(latest);
+                resumeFrom = latest.getVersion();
+            } else {
+                resumeFrom = after;
+            }
+
+            long seen = resumeFrom;
+            return Flux.concat(Flux.fromIterable(replay), live.filter(snapshot -> snapshot.getVersion() > seen))
+                .doFinally(signal -> connection.dispose());
+        });
+    }
+
+    // With afterSeq the subscriber first gets the retained deltas after that cursor, or the
+    // current state of every member when some of them are no longer retained or the cursor is unknown.
+    public Flux<MemberDelta> getMemberDeltaFlux(String groupId, String afterSeq) {
+        if (afterSeq == null) {
+            return Flux.defer(() -> {
+                history(groupId);
+                return deltaSinks.subscribe(groupId);
+            });
+        }
+        return Flux.defer(() -> {
+            GroupHistory history = history(groupId);
+            ConnectableFlux<MemberDelta> live = deltaSinks.subscribe(groupId).replay(bufferSize);
+            Disposable connection = live.connect();
+
+            long current = versions.get();
+            Long after = version(afterSeq, current);
+            List<MemberDelta> replay = after != null ? history.deltasAfter(after) : null;
+            long resumeFrom;
+            if (replay == null) {
+                replay = snapshotFactory.currentState(Long.valueOf(groupId), current);
+                resumeFrom = current;
+            } else {
+                resumeFrom = replay.isEmpty() ? after : replay.get(replay.size() - 1).getVersion();
+            }
+
+            long seen = resumeFrom;
+            return Flux.concat(Flux.fromIterable(replay), live.filter(delta -> delta.getVersion() > seen))
+                .doFinally(signal -> connection.dispose());
+        });
+    }
+
+    public void publishGroupStatus(String groupId, Group group) {
+        publishedGroups.increment();
+        emitGroup(groupId, group);
     }
 
     public void publishMemberStatus(String groupId, GroupMember member) {
-        System.out.println("Publishing member status for groupId: " + groupId + ", member: " + member.getId());
-        Sinks.Many<GroupMember> sink = getOrCreateMemberSink(groupId);
-        Sinks.EmitResult result = sink.tryEmitNext(member);
-        if (result.isFailure()) {
-            System.err.println("Failed to emit member update for " + groupId + ": " + result);
-        } else {
-            System.out.println("Successfully emitted member update for " + groupId);
+        publishedMembers.increment();
+        emitMember(groupId, member);
+    }
+
+    // Events from other nodes carry ids only; entities are reloaded once per batch,
+    // and only for groups that have subscribers on this node. Every event also drops the
+    // changed rows from this node's second-level cache.
+    private void deliverRemote(List<GroupEvent> events) {
+        List<Long> groupIds = new ArrayList<>();
+        List<Long> memberIds = new ArrayList<>();
+        for (GroupEvent event : events) {
+            if (event.getType() == GroupEventType.GROUP) {
+                remoteGroups.increment();
+                entityCacheEvictor.evictGroup(event.getGroupId());
+            } else {
+                remoteMembers.increment();
+                entityCacheEvictor.evictMember(event.getGroupId(), event.getEntityId());
+            }
+            String groupId = event.getGroupId().toString();
+            if (event.getType() == GroupEventType.GROUP) {
+                if (hasGroupSubscribers(groupId)) {
+                    groupIds.add(event.getEntityId());
+                } else {
+                    forgetSnapshot(groupId);
+                }
+            } else if (hasMemberSubscribers(groupId)) {
+                memberIds.add(event.getEntityId());
+            } else {
+                forgetDeltas(groupId);
+            }
+        }
+
+        if (!groupIds.isEmpty()) {
+            for (Group group : groupRepository.findAllById(groupIds)) {
+                emitGroup(group.getId().toString(), group);
+            }
+        }
+        if (!memberIds.isEmpty()) {
+            for (GroupMember member : groupMemberRepository.findAllById(memberIds)) {
+                emitMember(member.getGroup().getId().toString(), member);
+            }
         }
     }
 
-    private Sinks.Many<Group> getOrCreateGroupSink(String groupId) {
-        return groupSinks.computeIfAbsent(groupId, k -> {
-            System.out.println("Creating new group sink for groupId: " + k);
-            return Sinks.many().multicast().onBackpressureBuffer();
-        });
+    // Snapshots and deltas are built once here and the same instance goes to every subscriber.
+    // They are only built while someone is subscribed to them; otherwise the history is invalidated.
+    private void emitGroup(String groupId, Group group) {
+        groupSinks.emit(groupId, group);
+        GroupHistory history = histories.get(groupId);
+        if (history == null) {
+            return;
+        }
+        if (snapshotSinks.subscriberCount(groupId) == 0) {
+            forgetSnapshot(groupId);
+            return;
+        }
+        // Read inside the serial task so a later read can never be stamped with an earlier version
+        history.emitter().execute(() -> snapshotFactory.snapshot(group.getId()).ifPresent(snapshot -> {
+            GroupSnapshot stamped = snapshot.withVersion(versions.incrementAndGet());
+            history.setLatestSnapshot(stamped);
+            snapshotSinks.emit(groupId, stamped);
+        }));
     }
 
-    private Sinks.Many<GroupMember> getOrCreateMemberSink(String groupId) {
-        return memberSinks.computeIfAbsent(groupId, k -> {
-            System.out.println("Creating new member sink for groupId: " + k);
-            return Sinks.many().multicast().onBackpressureBuffer();
+    private void emitMember(String groupId, GroupMember member) {
+        memberSinks.emit(groupId, member);
+        GroupHistory history = histories.get(groupId);
+        if (history == null) {
+            return;
+        }
+        if (deltaSinks.subscriberCount(groupId) == 0) {
+            forgetDeltas(groupId);
+            return;
+        }
+        history.emitter().execute(() -> {
+            MemberDelta stamped = snapshotFactory.delta(Long.valueOf(groupId), member).withVersion(versions.incrementAndGet());
+            history.appendDelta(stamped);
+            deltaSinks.emit(groupId, stamped);
         });
     }
-} 
\ No newline at end of file
+
+    // Null for cursors from another node or run, malformed ones, and versions this node has not reached
+    private Long version(String cursor, long current) {
+        int separator = cursor.lastIndexOf(':');
+        if (separator < 0 || !cursor.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            long version = Long.parseLong(cursor.substring(separator + 1));
+            return version >= 0 && version <= current ? version : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private GroupHistory history(String groupId) {
+        return histories.computeIfAbsent(groupId, k -> new GroupHistory(historySize, versions.get()));
+    }
+
+    // A retained history alone does not count: it outlives its subscribers until it is evicted
+    private boolean hasGroupSubscribers(String groupId) {
+        return groupSinks.subscriberCount(groupId) > 0 || snapshotSinks.subscriberCount(groupId) > 0;
+    }
+
+    private boolean hasMemberSubscribers(String groupId) {
+        return memberSinks.subscriberCount(groupId) > 0 || deltaSinks.subscriberCount(groupId) > 0;
+    }
+
+    private void forgetSnapshot(String groupId) {
+        GroupHistory history = histories.get(groupId);
+        if (history != null) {
+            history.emitter().execute(history::dropSnapshot);
+        }
+    }
+
+    // The skipped change gets a version of its own, so any client that resumes from an earlier one reloads
+    private void forgetDeltas(String groupId) {
+        GroupHistory history = histories.get(groupId);
+        if (history != null) {
+            history.emitter().execute(() -> history.dropDeltas(versions.incrementAndGet()));
+        }
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String stream, SinkRegistry<?> registry) {
+        Gauge.builder("paytool.subscriptions.sinks", registry, SinkRegistry::liveSinks)
+            .description("Groups with at least one live subscriber")
+            .tag("stream", stream)
+            .register(meterRegistry);
+        Gauge.builder("paytool.subscriptions.buffered", registry, SinkRegistry::bufferedElements)
+            .description("Events waiting in per-subscriber buffers")
+            .tag("stream", stream)
+            .register(meterRegistry);
+        Gauge.builder("paytool.subscriptions.active", registry, SinkRegistry::totalSubscribers)
+            .description("Open subscriptions")
+            .tag("stream", stream)
+            .register(meterRegistry);
+        FunctionCounter.builder("paytool.subscriptions.emitted", registry, SinkRegistry::emittedElements)
+            .description("Events handed to subscribers, counted once per subscriber")
+            .tag("stream", stream)
+            .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String name, GroupEventType type) {
+        return Counter.builder(name)
+            .description("Group events by type")
+            .tag("type", type.name())
+            .register(meterRegistry);
+    }
+}
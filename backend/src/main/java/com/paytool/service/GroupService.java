@@ -5,44 +5,87 @@ import com.paytool.model.GroupMember;
 import com.paytool.model.User;
 import com.paytool.model.GroupStatus;
 import com.paytool.model.MemberStatus;
+import com.paytool.model.PaymentCard;
+import com.paytool.model.PaymentCardStatus;
 import com.paytool.repository.GroupMemberRepository;
 import com.paytool.repository.GroupRepository;
+import com.paytool.repository.PaymentCardRepository;
 import com.paytool.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import java.util.Optional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.function.Supplier;
 import com.paytool.exception.CustomException;
 @Service
 public class GroupService {
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final GroupMemberRepository groupMemberRepository;
-    private final GroupPublisher groupPublisher;
+    private final PaymentCardRepository paymentCardRepository;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final boolean autoIssueCard;
 
     public GroupService(
             GroupRepository groupRepository,
             UserRepository userRepository,
             GroupMemberRepository groupMemberRepository,
-            GroupPublisher groupPublisher) {
+            PaymentCardRepository paymentCardRepository,
+            CardNumberAllocator cardNumberAllocator,
+            EntityCacheEvictor entityCacheEvictor,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            @Value("${paytool.groups.max-attempts:3}") int maxAttempts,
+            @Value("${paytool.groups.auto-issue-card:false}") boolean autoIssueCard) {
         this.groupRepository = groupRepository;
         this.userRepository = userRepository;
         this.groupMemberRepository = groupMemberRepository;
-        this.groupPublisher = groupPublisher;
+        this.paymentCardRepository = paymentCardRepository;
+        this.cardNumberAllocator = cardNumberAllocator;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.autoIssueCard = autoIssueCard;
     }
 
-    @Transactional
+    // Admission is a single conditional UPDATE on the group row, so concurrent joiners only
+    // contend on that row and the group can never go over totalPeople. The unique key on
+    // (group_id, user_id) rejects a duplicate membership even when two requests race.
     public GroupMember joinGroup(Long groupId, Long userId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new CustomException("Group not found"));
+        try {
+            return inTransaction(() -> admit(groupId, userId));
+        } catch (DataIntegrityViolationException e) {
+            throw new CustomException("User is already a member of this group");
+        }
+    }
+
+    private GroupMember admit(Long groupId, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new CustomException("User not found"));
 
-        // Check if user is already a member
-        Optional<GroupMember> existingMember = groupMemberRepository.findByGroupIdAndUserId(groupId, userId);
-        if (existingMember.isPresent()) {
+        // Cheap pre-check; the unique constraint is what actually guarantees it
+        if (groupMemberRepository.findByGroupIdAndUserId(groupId, userId).isPresent()) {
             throw new CustomException("User is already a member of this group");
         }
 
+        if (groupRepository.incrementJoinedCount(groupId) == 0) {
+            if (!groupRepository.existsById(groupId)) {
+                throw new CustomException("Group not found");
+            }
+            throw new CustomException("Group is full");
+        }
+        entityCacheEvictor.evictGroup(groupId);
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new CustomException("Group not found"));
+
         // Calculate split amount
         double splitAmount = group.getTotalAmount() / group.getTotalPeople();
 
@@ -53,40 +96,108 @@ public class GroupService {
         member.setAmount(splitAmount);
         member.setStatus(MemberStatus.PENDING);
 
-        // Save member
-        GroupMember savedMember = groupMemberRepository.save(member);
+        // Flush so a duplicate membership fails here and rolls back the admission
+        GroupMember savedMember = groupMemberRepository.saveAndFlush(member);
 
-        // Fetch updated group with all members
-        Group updatedGroup = groupRepository.findById(groupId)
-                .orElseThrow(() -> new CustomException("Group not found"));
-
-        // Publish group update
-        groupPublisher.publishGroupStatus(groupId.toString(), updatedGroup);
+        // Subscribers get a fresh group snapshot once this transaction commits
+        eventPublisher.publishEvent(new GroupChangedEvent(groupId));
 
         return savedMember;
     }
 
-    @Transactional
+    // The member row is locked so the agreed counter moves exactly once per status transition
     public GroupMember updateMemberStatus(Long groupId, Long userId, MemberStatus status) {
-        GroupMember member = groupMemberRepository.findByGroupIdAndUserId(groupId, userId)
-                .orElseThrow(() -> new CustomException("Member not found"));
-
-        member.setStatus(status);
-        member = groupMemberRepository.save(member);
+        return inTransaction(() -> {
+            GroupMember member = groupMemberRepository.findByGroupIdAndUserIdForUpdate(groupId, userId)
+                    .orElseThrow(() -> new CustomException("Member not found"));
+
+            MemberStatus previous = member.getStatus();
+            member.setStatus(status);
+            member = groupMemberRepository.save(member);
+
+            int agreedDelta = (status == MemberStatus.AGREED ? 1 : 0) - (previous == MemberStatus.AGREED ? 1 : 0);
+            if (agreedDelta != 0) {
+                groupRepository.adjustAgreedCount(groupId, agreedDelta);
+                entityCacheEvictor.evictGroup(groupId);
+            }
+
+            eventPublisher.publishEvent(new MemberChangedEvent(groupId, member));
+
+            // Issue the card in the same transaction as the last agreement, so clients need not poll
+            if (autoIssueCard && status == MemberStatus.AGREED && groupRepository.markCompletedIfReady(groupId) == 1) {
+                entityCacheEvictor.evictGroup(groupId);
+                issueCard(groupId);
+            }
+            return member;
+        });
+    }
 
-        groupPublisher.publishMemberStatus(groupId.toString(), member);
-        return member;
+    // Readiness is read from the group's counters, and the conditional COMPLETED transition lets
+    // exactly one caller issue the card; everyone else gets the card that was already issued.
+    public PaymentCard generatePaymentCard(Long groupId) {
+        return inTransaction(() -> {
+            if (groupRepository.markCompletedIfReady(groupId) == 1) {
+                entityCacheEvictor.evictGroup(groupId);
+                return issueCard(groupId);
+            }
+
+            Group group = groupRepository.findById(groupId)
+                    .orElseThrow(() -> new CustomException("Group not found"));
+            List<PaymentCard> cards = paymentCardRepository.findByGroup(group);
+            if (!cards.isEmpty()) {
+                return cards.get(0);
+            }
+            if (!group.getJoinedCount().equals(group.getTotalPeople())) {
+                throw new CustomException("Not enough members to generate payment card. Expected "
+                    + group.getTotalPeople() + ", but got " + group.getJoinedCount());
+            }
+            if (!group.getAgreedCount().equals(group.getTotalPeople())) {
+                throw new CustomException("Not all members have agreed to the payment");
+            }
+            throw new CustomException("Group is already completed");
+        });
     }
 
-    @Transactional
+    // Retried because a concurrent join bumps the group's version
     public Group updateGroupStatus(Long groupId, GroupStatus status) {
+        return inTransaction(() -> {
+            Group group = groupRepository.findById(groupId)
+                    .orElseThrow(() -> new CustomException("Group not found"));
+
+            group.setStatus(status);
+            Group updatedGroup = groupRepository.saveAndFlush(group);
+
+            eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+            return updatedGroup;
+        });
+    }
+
+    private PaymentCard issueCard(Long groupId) {
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new CustomException("Group not found"));
 
-        group.setStatus(status);
-        Group updatedGroup = groupRepository.save(group);
+        PaymentCard card = new PaymentCard();
+        card.setGroup(group);
+        card.setCardNumber(cardNumberAllocator.next());
+        card.setAmount(group.getTotalAmount());
+        card.setStatus(PaymentCardStatus.ACTIVE);
+        PaymentCard savedCard = paymentCardRepository.save(card);
 
-        groupPublisher.publishGroupStatus(groupId.toString(), updatedGroup);
-        return updatedGroup;
+        eventPublisher.publishEvent(new GroupChangedEvent(groupId));
+        return savedCard;
+    }
+
+    // Runs the work in a fresh transaction, retrying a bounded number of times on lock
+    // timeouts, deadlocks and optimistic version conflicts.
+    private <T> T inTransaction(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(tx -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new CustomException("Group is busy, please try again");
+                }
+            }
+        }
     }
 } 
\ No newline at end of file
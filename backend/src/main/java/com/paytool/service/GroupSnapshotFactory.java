@@ -0,0 +1,109 @@
+package com.paytool.service;
+
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.dto.MemberDelta;
+import com.paytool.dto.MemberSnapshot;
+import com.paytool.dto.UserSummary;
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupMemberRepository;
+import com.paytool.repository.GroupRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+public class GroupSnapshotFactory {
+    private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
+
+    public GroupSnapshotFactory(GroupRepository groupRepository, GroupMemberRepository groupMemberRepository) {
+        this.groupRepository = groupRepository;
+        this.groupMemberRepository = groupMemberRepository;
+    }
+
+    // Payloads are built with version 0; GroupPublisher stamps the version when it emits them.
+    // Two statements regardless of group size: the group with its leader, then the members with their users
+    @Transactional(readOnly = true)
+    public Optional<GroupSnapshot> snapshot(Long groupId) {
+        Optional<Group> found = groupRepository.findWithLeaderById(groupId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Group group = found.get();
+
+        List<GroupMember> members = groupMemberRepository.findByGroupIdWithUser(groupId);
+        List<MemberSnapshot> memberSnapshots = new ArrayList<>(members.size());
+        int agreed = 0;
+        for (GroupMember member : members) {
+            if (member.getStatus() == MemberStatus.AGREED) {
+                agreed++;
+            }
+            memberSnapshots.add(new MemberSnapshot(
+                member.getId(), member.getAmount(), member.getStatus(), summary(member.getUser())));
+        }
+
+        return Optional.of(new GroupSnapshot(
+            group.getId(),
+            0L,
+            group.getStatus(),
+            group.getDescription(),
+            group.getTotalAmount(),
+            group.getTotalPeople(),
+            members.size(),
+            agreed,
+            summary(group.getLeader()),
+            List.copyOf(memberSnapshots)));
+    }
+
+    // Counts come from the group's joined/agreed counters, one primary key read instead of two COUNT queries
+    @Transactional(readOnly = true)
+    public MemberDelta delta(Long groupId, GroupMember member) {
+        Group group = groupRepository.findById(groupId)
+            .orElseThrow(() -> new IllegalStateException("Group " + groupId + " not found"));
+        return new MemberDelta(
+            member.getId(),
+            groupId,
+            0L,
+            member.getUser().getId(),
+            member.getStatus(),
+            member.getAmount(),
+            group.getJoinedCount(),
+            group.getAgreedCount());
+    }
+
+    // The current state of every member, for subscribers whose resume point is no longer retained
+    @Transactional(readOnly = true)
+    public List<MemberDelta> currentState(Long groupId, long version) {
+        List<GroupMember> members = groupMemberRepository.findByGroupIdWithUser(groupId);
+        int agreed = 0;
+        for (GroupMember member : members) {
+            if (member.getStatus() == MemberStatus.AGREED) {
+                agreed++;
+            }
+        }
+
+        List<MemberDelta> result = new ArrayList<>(members.size());
+        for (GroupMember member : members) {
+            result.add(new MemberDelta(
+                member.getId(),
+                groupId,
+                version,
+                member.getUser().getId(),
+                member.getStatus(),
+                member.getAmount(),
+                members.size(),
+                agreed));
+        }
+        return result;
+    }
+
+    private static UserSummary summary(User user) {
+        return new UserSummary(user.getId(), user.getName(), user.getUsername());
+    }
+}
@@ -0,0 +1,111 @@
+package com.paytool.service;
+
+import com.paytool.model.GroupEventRecord;
+import com.paytool.repository.GroupEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Outbox-polling bus on the application datasource. Each event is written to group_events in the
+// transaction that made the change, so a change commits together with its event even if the node
+// dies right after. Every node then reads the rows it has not seen yet, skips its own, and hands
+// the rest to the listener with duplicates collapsed. created_at comes from the database clock,
+// which is also what the settle window and the retention cutoff are measured against.
+@Component
+@ConditionalOnProperty(name = "paytool.events.bus", havingValue = "jdbc")
+public class JdbcGroupEventBus implements GroupEventBus {
+    private final GroupEventRepository groupEventRepository;
+    private final String nodeId;
+    private final int batchSize;
+    private final long settleMillis;
+    private final long retentionMillis;
+
+    private volatile Consumer<List<GroupEvent>> remoteListener = events -> { };
+    // Only touched from the scheduler thread
+    private Long lastSeenId;
+
+    public JdbcGroupEventBus(
+            GroupEventRepository groupEventRepository,
+            @Value("${paytool.events.node-id:}") String nodeId,
+            @Value("${paytool.events.batch-size:500}") int batchSize,
+            @Value("${paytool.events.settle-ms:1000}") long settleMillis,
+            @Value("${paytool.events.retention-ms:600000}") long retentionMillis) {
+        this.groupEventRepository = groupEventRepository;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.settleMillis = settleMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    // Joins the caller's transaction
+    @Override
+    public void publish(GroupEvent event) {
+        GroupEventRecord record = new GroupEventRecord();
+        record.setType(event.getType());
+        record.setGroupId(event.getGroupId());
+        record.setEntityId(event.getEntityId());
+        record.setOriginNode(nodeId);
+        groupEventRepository.save(record);
+    }
+
+    @Override
+    public void setRemoteListener(Consumer<List<GroupEvent>> listener) {
+        this.remoteListener = listener;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Scheduled(fixedDelayString = "${paytool.events.poll-interval-ms:250}")
+    public void poll() {
+        if (lastSeenId == null) {
+            // Start from the current tail; events written before this node started are not replayed
+            Long maxId = groupEventRepository.findMaxId();
+            lastSeenId = maxId != null ? maxId : 0L;
+            return;
+        }
+
+        List<GroupEventRecord> rows = groupEventRepository.findByIdGreaterThanOrderByIdAsc(
+            lastSeenId, PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // Identity values are assigned before commit, so a lower id can become visible after a higher one.
+        // Rows younger than the settle window are left for the next tick instead of being stepped over.
+        LocalDateTime settled = groupEventRepository.databaseTime().minus(Duration.ofMillis(settleMillis));
+        Set<GroupEvent> batch = new LinkedHashSet<>();
+        for (GroupEventRecord row : rows) {
+            if (row.getCreatedAt() != null && row.getCreatedAt().isAfter(settled)) {
+                break;
+            }
+            lastSeenId = row.getId();
+            if (!nodeId.equals(row.getOriginNode())) {
+                batch.add(new GroupEvent(row.getType(), row.getGroupId(), row.getEntityId()));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            remoteListener.accept(new ArrayList<>(batch));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${paytool.events.cleanup-interval-ms:60000}")
+    @Transactional
+    public void purge() {
+        groupEventRepository.deleteCreatedBefore(groupEventRepository.databaseTime().minus(Duration.ofMillis(retentionMillis)));
+    }
+}
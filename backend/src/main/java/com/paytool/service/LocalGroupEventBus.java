@@ -0,0 +1,21 @@
+package com.paytool.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Single-node deployments: there are no other nodes to reach
+@Component
+@ConditionalOnProperty(name = "paytool.events.bus", havingValue = "local", matchIfMissing = true)
+public class LocalGroupEventBus implements GroupEventBus {
+
+    @Override
+    public void publish(GroupEvent event) {
+    }
+
+    @Override
+    public void setRemoteListener(Consumer<List<GroupEvent>> listener) {
+    }
+}
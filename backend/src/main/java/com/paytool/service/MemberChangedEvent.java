@@ -0,0 +1,12 @@
+package com.paytool.service;
+
+import com.paytool.model.GroupMember;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MemberChangedEvent {
+    private Long groupId;
+    private GroupMember member;
+}
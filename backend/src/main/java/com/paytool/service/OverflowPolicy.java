@@ -0,0 +1,10 @@
+package com.paytool.service;
+
+public enum OverflowPolicy {
+    // Keep only the newest element; suits full snapshots where older ones are superseded
+    LATEST,
+    DROP_OLDEST,
+    DROP_NEWEST,
+    // Terminate the slow subscriber with an error
+    ERROR
+}
@@ -0,0 +1,108 @@
+package com.paytool.service;
+
+import com.paytool.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs BCrypt on its own pool sized to the CPU count, so a login burst cannot occupy every
+// request thread. The queue is bounded; when it is full the call fails right away with
+// "Server is busy" instead of piling up work that would time out anyway.
+@Component
+public class PasswordHasher {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${paytool.passwords.threads:0}") int threads,
+            @Value("${paytool.passwords.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("paytool.passwords.hash")
+            .description("Time spent hashing or verifying a password, excluding queueing")
+            .tag("operation", "encode")
+            .register(meterRegistry);
+        this.matchTimer = Timer.builder("paytool.passwords.hash")
+            .description("Time spent hashing or verifying a password, excluding queueing")
+            .tag("operation", "matches")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("paytool.passwords.rejected")
+            .description("Hashing requests shed because the queue was full")
+            .register(meterRegistry);
+        Gauge.builder("paytool.passwords.queue", executor, e -> e.getQueue().size())
+            .description("Hashing requests waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("paytool.passwords.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Hashing requests running")
+            .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Verifies the password and, when the stored hash uses an older cost factor, also returns a
+    // new hash made with the current one; the second hash runs on the same pool thread.
+    public CompletableFuture<Verification> verify(String rawPassword, String encodedPassword, boolean rehash) {
+        return submit(() -> {
+            boolean matched = matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            if (!matched || !rehash || !passwordEncoder.upgradeEncoding(encodedPassword)) {
+                return new Verification(matched, null);
+            }
+            return new Verification(true, encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new CustomException("Server is busy, please try again");
+        }
+    }
+
+    // upgradedHash is set only when the password matched and its hash was made with an outdated cost
+    @lombok.Value
+    public static class Verification {
+        boolean matched;
+        String upgradedHash;
+    }
+}
@@ -0,0 +1,56 @@
+package com.paytool.service;
+
+import com.paytool.model.TransactionStatus;
+import com.paytool.repository.GroupRepository;
+import com.paytool.repository.TransactionRepository;
+import com.paytool.repository.UserBalanceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The schema comes from ddl-auto: update, which adds new tables and columns with their defaults
+// but never runs the data steps of the Liquibase changelogs under db/changelog. This fills in
+// data that predates them. It runs once all beans exist and before the web server starts, and
+// every step only touches rows still in their pre-migration state, so restarts and several
+// nodes starting at once are harmless.
+@Slf4j
+@Component
+public class SchemaBackfill implements SmartInitializingSingleton {
+    private final GroupRepository groupRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserBalanceRepository userBalanceRepository;
+    private final BalanceRebuildJob balanceRebuildJob;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaBackfill(
+            GroupRepository groupRepository,
+            TransactionRepository transactionRepository,
+            UserBalanceRepository userBalanceRepository,
+            BalanceRebuildJob balanceRebuildJob,
+            EntityCacheEvictor entityCacheEvictor,
+            TransactionTemplate transactionTemplate) {
+        this.groupRepository = groupRepository;
+        this.transactionRepository = transactionRepository;
+        this.userBalanceRepository = userBalanceRepository;
+        this.balanceRebuildJob = balanceRebuildJob;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer joined = transactionTemplate.execute(tx -> groupRepository.backfillJoinedCount());
+        Integer agreed = transactionTemplate.execute(tx -> groupRepository.backfillAgreedCount());
+        if (joined != null && joined > 0 || agreed != null && agreed > 0) {
+            entityCacheEvictor.evictGroups();
+            log.info("Backfilled joined_count for {} groups and agreed_count for {} groups", joined, agreed);
+        }
+
+        // An empty ledger next to completed transactions means the tables were just created
+        if (userBalanceRepository.count() == 0 && transactionRepository.existsByStatus(TransactionStatus.COMPLETED)) {
+            balanceRebuildJob.rebuild();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.paytool.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs tasks one at a time in submission order without a lock. A submitting thread that finds the
+// executor idle drains the queue itself; threads that arrive meanwhile only enqueue and return,
+// and their tasks are picked up by the thread already draining.
+@Slf4j
+class SerialExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Runnable next;
+            while ((next = tasks.poll()) != null) {
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    log.warn("Serialized task failed", e);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,112 @@
+package com.paytool.service;
+
+// Debt simplification over net balances in cents. Index i of the input is one user; a positive
+// balance means the user received more than they sent and has to pay it back out.
+// Debtors and creditors are each sorted largest first and matched greedily, which clears every
+// balance in at most n - 1 transfers. Finding the fewest possible transfers is NP-hard, so this
+// is the bound we settle for. Everything is kept in primitive arrays.
+final class SettlementEngine {
+    private SettlementEngine() {
+    }
+
+    static Plan settle(long[] balances) {
+        int n = balances.length;
+        int[] debtors = new int[n];
+        int[] creditors = new int[n];
+        int debtorCount = 0;
+        int creditorCount = 0;
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            long balance = balances[i];
+            total += balance;
+            if (balance > 0) {
+                debtors[debtorCount++] = i;
+            } else if (balance < 0) {
+                creditors[creditorCount++] = i;
+            }
+        }
+        if (total != 0) {
+            throw new IllegalArgumentException("Balances do not sum to zero: " + total);
+        }
+
+        long[] owed = new long[n];
+        for (int i = 0; i < n; i++) {
+            owed[i] = Math.abs(balances[i]);
+        }
+        sortDescending(debtors, debtorCount, owed);
+        sortDescending(creditors, creditorCount, owed);
+
+        Plan plan = new Plan(Math.max(0, debtorCount + creditorCount - 1));
+        int d = 0;
+        int c = 0;
+        while (d < debtorCount && c < creditorCount) {
+            int debtor = debtors[d];
+            int creditor = creditors[c];
+            long amount = Math.min(owed[debtor], owed[creditor]);
+            plan.add(debtor, creditor, amount);
+            owed[debtor] -= amount;
+            owed[creditor] -= amount;
+            if (owed[debtor] == 0) {
+                d++;
+            }
+            if (owed[creditor] == 0) {
+                c++;
+            }
+        }
+        return plan;
+    }
+
+    // In-place heapsort of the first count indices, largest key first
+    private static void sortDescending(int[] indices, int count, long[] keys) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(indices, i, count, keys);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            int top = indices[0];
+            indices[0] = indices[end];
+            indices[end] = top;
+            siftDown(indices, 0, end, keys);
+        }
+    }
+
+    // Min-heap, so repeatedly moving the root to the end leaves the largest keys in front
+    private static void siftDown(int[] indices, int root, int size, long[] keys) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && keys[indices[child + 1]] < keys[indices[child]]) {
+                child++;
+            }
+            if (keys[indices[root]] <= keys[indices[child]]) {
+                return;
+            }
+            int swap = indices[root];
+            indices[root] = indices[child];
+            indices[child] = swap;
+            root = child;
+        }
+    }
+
+    // Transfers as parallel arrays: from[i] pays to[i] the amount cents[i]
+    static final class Plan {
+        final int[] from;
+        final int[] to;
+        final long[] cents;
+        int size;
+
+        Plan(int capacity) {
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.cents = new long[capacity];
+        }
+
+        void add(int debtor, int creditor, long amount) {
+            from[size] = debtor;
+            to[size] = creditor;
+            cents[size] = amount;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.paytool.service;
+
+import com.paytool.dto.Settlement;
+import com.paytool.exception.CustomException;
+import com.paytool.model.PairBalance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Plans the transfers that clear the balances among a set of users. Only money that moved
+// between members of the set counts. Balances come from pair_balances, are converted to long
+// cents once, and SettlementEngine works on the arrays.
+@Service
+public class SettlementService {
+    private final BalanceLedger balanceLedger;
+    private final int maxUsers;
+    private final long cacheTtlMillis;
+    // Plans keyed on the sorted user ids and the ledger version they were computed from
+    private final Map<String, CachedPlan> cache;
+
+    public SettlementService(
+            BalanceLedger balanceLedger,
+            @Value("${paytool.settlement.max-users:5000}") int maxUsers,
+            @Value("${paytool.settlement.cache-size:1000}") int cacheSize,
+            @Value("${paytool.settlement.cache-ttl-ms:5000}") long cacheTtlMillis) {
+        this.balanceLedger = balanceLedger;
+        this.maxUsers = maxUsers;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPlan> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public List<Settlement> settleUp(List<Long> userIds) {
+        long[] ids = new TreeSet<>(userIds).stream().mapToLong(Long::longValue).toArray();
+        if (ids.length > maxUsers) {
+            throw new CustomException("settleUp accepts at most " + maxUsers + " users");
+        }
+
+        // The version is read before the balances, so a plan is never cached under a newer version than its data
+        long version = balanceLedger.getVersion();
+        String key = version + ":" + joinIds(ids);
+        long now = System.currentTimeMillis();
+        CachedPlan cached = cache.get(key);
+        // The version only sees this node's writes; the TTL bounds how long other nodes' writes stay invisible
+        if (cached != null && now - cached.computedAt < cacheTtlMillis) {
+            return cached.settlements;
+        }
+
+        List<Settlement> settlements = compute(ids);
+        cache.put(key, new CachedPlan(settlements, now));
+        return settlements;
+    }
+
+    private List<Settlement> compute(long[] ids) {
+        if (ids.length < 2) {
+            return List.of();
+        }
+        Map<Long, Integer> index = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            index.put(ids[i], i);
+        }
+
+        // Net received minus sent per user; the stored pair amount flows from the lower id to the higher id
+        long[] balances = new long[ids.length];
+        List<Long> idList = new ArrayList<>(index.keySet());
+        for (PairBalance pair : balanceLedger.pairBalancesWithin(idList)) {
+            long cents = toCents(pair.getAmount());
+            balances[index.get(pair.getUserLowId())] -= cents;
+            balances[index.get(pair.getUserHighId())] += cents;
+        }
+
+        return settle(ids, balances);
+    }
+
+    // The planning step on its own, for balances already netted to cents: balances[i] belongs
+    // to user ids[i], and the balances must sum to zero. Nothing is read or cached.
+    public static List<Settlement> settle(long[] ids, long[] balances) {
+        SettlementEngine.Plan plan = SettlementEngine.settle(balances);
+        List<Settlement> settlements = new ArrayList<>(plan.size);
+        for (int i = 0; i < plan.size; i++) {
+            settlements.add(new Settlement(ids[plan.from[i]], ids[plan.to[i]], BigDecimal.valueOf(plan.cents[i], 2)));
+        }
+        return List.copyOf(settlements);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static String joinIds(long[] ids) {
+        StringBuilder key = new StringBuilder(ids.length * 8);
+        for (long id : ids) {
+            key.append(id).append(',');
+        }
+        return key.toString();
+    }
+
+    private static final class CachedPlan {
+        final List<Settlement> settlements;
+        final long computedAt;
+
+        CachedPlan(List<Settlement> settlements, long computedAt) {
+            this.settlements = settlements;
+            this.computedAt = computedAt;
+        }
+    }
+}
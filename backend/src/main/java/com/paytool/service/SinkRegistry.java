@@ -0,0 +1,141 @@
+package com.paytool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// One multicast sink per key, created by the first subscriber and removed when the last one cancels.
+// The shared sink never buffers; every subscriber gets its own bounded buffer with the configured policy.
+@Slf4j
+public class SinkRegistry<T> {
+    private final Map<String, Entry<T>> sinks = new ConcurrentHashMap<>();
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+
+    public SinkRegistry(int bufferSize, OverflowPolicy overflowPolicy) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Flux<T> subscribe(String key) {
+        return Flux.defer(() -> {
+            Entry<T> entry = acquire(key);
+            AtomicLong pending = new AtomicLong();
+            Flux<T> upstream = entry.sink.asFlux().doOnNext(value -> {
+                pending.incrementAndGet();
+                buffered.incrementAndGet();
+            });
+            Consumer<T> onDrop = dropped -> {
+                pending.decrementAndGet();
+                buffered.decrementAndGet();
+            };
+            return bounded(upstream, onDrop)
+                .doOnNext(value -> {
+                    onDrop.accept(value);
+                    emitted.incrementAndGet();
+                })
+                .doFinally(signal -> {
+                    buffered.addAndGet(-pending.getAndSet(0));
+                    release(key, entry);
+                });
+        });
+    }
+
+    // Returns false when nobody is subscribed to the key; no sink is created in that case.
+    // Concurrent callers for the same key are serialized through the entry's drain loop, so the
+    // sink never sees overlapping tryEmitNext calls and nothing is dropped as FAIL_NON_SERIALIZED.
+    public boolean emit(String key, T value) {
+        Entry<T> entry = sinks.get(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.emitter.execute(() -> {
+            Sinks.EmitResult result = entry.sink.tryEmitNext(value);
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER
+                    && result != Sinks.EmitResult.FAIL_TERMINATED) {
+                log.warn("Failed to emit update for {}: {}", key, result);
+            }
+        });
+        return true;
+    }
+
+    public int liveSinks() {
+        return sinks.size();
+    }
+
+    public long bufferedElements() {
+        return buffered.get();
+    }
+
+    public int totalSubscribers() {
+        return subscribers.get();
+    }
+
+    public long emittedElements() {
+        return emitted.get();
+    }
+
+    public int subscriberCount(String key) {
+        Entry<T> entry = sinks.get(key);
+        return entry == null ? 0 : entry.subscribers;
+    }
+
+    private Flux<T> bounded(Flux<T> upstream, Consumer<T> onDrop) {
+        switch (overflowPolicy) {
+            case LATEST:
+                return upstream.onBackpressureBuffer(1, onDrop, BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_OLDEST:
+                return upstream.onBackpressureBuffer(bufferSize, onDrop, BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_NEWEST:
+                return upstream.onBackpressureBuffer(bufferSize, onDrop, BufferOverflowStrategy.DROP_LATEST);
+            default:
+                return upstream.onBackpressureBuffer(bufferSize, onDrop, BufferOverflowStrategy.ERROR);
+        }
+    }
+
+    private Entry<T> acquire(String key) {
+        return sinks.compute(key, (k, existing) -> {
+            Entry<T> entry = existing != null ? existing : new Entry<>();
+            entry.subscribers++;
+            subscribers.incrementAndGet();
+            return entry;
+        });
+    }
+
+    // The sink is completed after the entry is gone from the map, so no emission runs inside compute
+    private void release(String key, Entry<T> entry) {
+        subscribers.decrementAndGet();
+        boolean[] removed = new boolean[1];
+        sinks.computeIfPresent(key, (k, existing) -> {
+            if (existing != entry || --existing.subscribers > 0) {
+                return existing;
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            entry.emitter.execute(entry.sink::tryEmitComplete);
+        }
+    }
+
+    private static final class Entry<T> {
+        // directBestEffort keeps no shared buffer; per-subscriber buffers always signal demand upstream
+        private final Sinks.Many<T> sink = Sinks.many().multicast().directBestEffort();
+        private final SerialExecutor emitter = new SerialExecutor();
+        // Only written inside ConcurrentHashMap.compute for the owning key
+        private volatile int subscribers;
+    }
+}
@@ -0,0 +1,64 @@
+package com.paytool.service;
+
+import com.paytool.dto.CreateTransactionInput;
+import com.paytool.exception.CustomException;
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import com.paytool.repository.TransactionRepository;
+import com.paytool.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class TransactionService {
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final BalanceLedger balanceLedger;
+
+    public TransactionService(
+            TransactionRepository transactionRepository,
+            UserRepository userRepository,
+            BalanceLedger balanceLedger) {
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.balanceLedger = balanceLedger;
+    }
+
+    @Transactional
+    public Transaction createTransaction(CreateTransactionInput input) {
+        User sender = userRepository.findById(Long.parseLong(input.getSenderId()))
+            .orElseThrow(() -> new CustomException("Sender not found"));
+        User receiver = userRepository.findById(Long.parseLong(input.getReceiverId()))
+            .orElseThrow(() -> new CustomException("Receiver not found"));
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(input.getAmount());
+        transaction.setDescription(input.getDescription());
+        transaction.setStatus(TransactionStatus.PENDING);
+
+        // New transactions are PENDING; the ledger changes when updateTransactionStatus completes them
+        return transactionRepository.save(transaction);
+    }
+
+    // The row lock makes the status transition and the ledger change one step,
+    // so concurrent updates cannot apply or reverse the same transaction twice
+    @Transactional
+    public Transaction updateTransactionStatus(Long id, TransactionStatus status) {
+        Transaction transaction = transactionRepository.findByIdForUpdate(id)
+            .orElseThrow(() -> new CustomException("Transaction not found"));
+
+        TransactionStatus previous = transaction.getStatus();
+        transaction.setStatus(status);
+        Transaction saved = transactionRepository.save(transaction);
+
+        if (previous != TransactionStatus.COMPLETED && status == TransactionStatus.COMPLETED) {
+            balanceLedger.apply(saved);
+        } else if (previous == TransactionStatus.COMPLETED && status != TransactionStatus.COMPLETED) {
+            balanceLedger.reverse(saved);
+        }
+        return saved;
+    }
+}
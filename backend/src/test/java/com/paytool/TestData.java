@@ -0,0 +1,80 @@
+package com.paytool;
+
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupMemberRepository;
+import com.paytool.repository.GroupRepository;
+import com.paytool.repository.TransactionRepository;
+import com.paytool.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Rows for tests, written straight through the repositories
+@Component
+public class TestData {
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final TransactionRepository transactionRepository;
+
+    public TestData(
+            UserRepository userRepository,
+            GroupRepository groupRepository,
+            GroupMemberRepository groupMemberRepository,
+            TransactionRepository transactionRepository) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public User user() {
+        String name = UUID.randomUUID().toString();
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setName(name);
+        user.setPassword("not-a-hash");
+        return userRepository.save(user);
+    }
+
+    // A pending group whose leader holds the first seat and has agreed, like createGroup leaves it
+    public Group group(User leader, int totalPeople) {
+        Group group = new Group();
+        group.setLeader(leader);
+        group.setTotalAmount(100.0 * totalPeople);
+        group.setTotalPeople(totalPeople);
+        group.setStatus(GroupStatus.PENDING);
+        group.setQrCode(UUID.randomUUID().toString());
+        group.setJoinedCount(1);
+        group.setAgreedCount(1);
+        Group saved = groupRepository.save(group);
+        member(saved, leader, MemberStatus.AGREED);
+        return saved;
+    }
+
+    public GroupMember member(Group group, User user, MemberStatus status) {
+        GroupMember member = new GroupMember();
+        member.setGroup(group);
+        member.setUser(user);
+        member.setAmount(group.getTotalAmount() / group.getTotalPeople());
+        member.setStatus(status);
+        return groupMemberRepository.save(member);
+    }
+
+    public Transaction transaction(User sender, User receiver, BigDecimal amount, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(amount);
+        transaction.setStatus(status);
+        return transactionRepository.save(transaction);
+    }
+}
@@ -0,0 +1,62 @@
+package com.paytool.config;
+
+import com.paytool.TestData;
+import com.paytool.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Only the probes are open on the management port; everything else needs a bearer token.
+// Tests turn metrics export off unless asked, and without it there is no prometheus endpoint.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@ActiveProfiles("test")
+@AutoConfigureObservability
+class ActuatorSecurityTest {
+    @LocalManagementPort
+    private int managementPort;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void healthAndInfoAreOpen() {
+        assertThat(get("health", null).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("info", null).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void metricsAndPrometheusRequireAToken() {
+        assertThat(get("metrics", null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(get("prometheus", null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(get("prometheus", "not-a-token").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        String token = jwtTokenProvider.generateToken(testData.user());
+        assertThat(get("metrics", token).getStatusCode()).isEqualTo(HttpStatus.OK);
+        ResponseEntity<String> prometheus = get("prometheus", token);
+        assertThat(prometheus.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(prometheus.getBody()).contains("paytool_subscriptions_active");
+    }
+
+    private ResponseEntity<String> get(String endpoint, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.setBearerAuth(token);
+        }
+        return restTemplate.exchange("http://localhost:" + managementPort + "/actuator/" + endpoint,
+            HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
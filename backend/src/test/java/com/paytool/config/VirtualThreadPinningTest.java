@@ -0,0 +1,124 @@
+package com.paytool.config;
+
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import com.paytool.model.User;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs contended GraphQL traffic in virtual-thread mode under a JFR recording and fails on any
+// jdk.VirtualThreadPinned event, i.e. a virtual thread that blocked while holding a monitor
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+@ActiveProfiles("test")
+class VirtualThreadPinningTest {
+    private static final String JOIN = """
+        mutation($groupId: ID!, $userId: ID!) { joinGroup(groupId: $groupId, userId: $userId) { id } }""";
+    private static final String TRANSFER = """
+        mutation($input: CreateTransactionInput!) { createTransaction(input: $input) { id } }""";
+    private static final String READ = """
+        query($groupId: ID!, $userIds: [ID!]!) {
+          group(id: $groupId) { status members { user { name } } }
+          settleUp(userIds: $userIds) { amount }
+        }""";
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor applicationTaskExecutor;
+    @Autowired
+    private TestData testData;
+
+    // Callable data fetchers are handed to this executor
+    @Test
+    void callableFetchersRunOnVirtualThreads() throws Exception {
+        assertThat(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual()).get()).isTrue();
+    }
+
+    @Test
+    void contendedRequestsNeverPinTheirCarrier() throws Exception {
+        Group group = testData.group(testData.user(), 100);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(testData.user());
+        }
+        List<Long> userIds = users.stream().map(User::getId).toList();
+
+        Path dump = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            // Every pinned park is reported, not only those over the default 20 ms
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            List<Future<ExecutionGraphQlResponse>> responses = new ArrayList<>();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < users.size(); i++) {
+                    User user = users.get(i);
+                    User next = users.get((i + 1) % users.size());
+                    responses.add(clients.submit(() -> execute(JOIN, Map.of("groupId", group.getId(), "userId", user.getId()))));
+                    responses.add(clients.submit(() -> execute(TRANSFER, Map.of("input", Map.of(
+                        "senderId", user.getId(), "receiverId", next.getId(), "amount", 10.0)))));
+                    responses.add(clients.submit(() -> execute(READ, Map.of("groupId", group.getId(), "userIds", userIds))));
+                }
+            }
+            for (Future<ExecutionGraphQlResponse> response : responses) {
+                assertThat(response.get().getErrors()).isEmpty();
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        try {
+            List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .toList();
+            assertThat(pinned).as(() -> pinned.stream().map(VirtualThreadPinningTest::describe)
+                .collect(Collectors.joining("\n\n"))).isEmpty();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private ExecutionGraphQlResponse execute(String document, Map<String, Object> variables) {
+        DefaultExecutionGraphQlRequest request = new DefaultExecutionGraphQlRequest(
+            document, null, variables, null, UUID.randomUUID().toString(), null);
+        return graphQlService.execute(request).block();
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "pinned for " + event.getDuration();
+        }
+        return "pinned for " + event.getDuration() + "\n" + event.getStackTrace().getFrames().stream()
+            .limit(20)
+            .map(RecordedFrame::getMethod)
+            .map(method -> "    at " + method.getType().getName() + "." + method.getName())
+            .collect(Collectors.joining("\n"));
+    }
+}
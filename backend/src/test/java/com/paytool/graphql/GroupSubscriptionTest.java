@@ -0,0 +1,164 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.model.Group;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.service.GroupPublisher;
+import com.paytool.service.GroupService;
+import graphql.ExecutionResult;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Snapshot and delta subscriptions, read through GraphQL the way clients select them
+@SpringBootTest
+@ActiveProfiles("test")
+class GroupSubscriptionTest {
+    private static final String SNAPSHOTS = """
+        subscription($groupId: ID!) {
+          groupSnapshots(groupId: $groupId) {
+            id version status totalPeople memberCount agreedCount
+            leader { id name }
+            members { id status user { id username } }
+          }
+        }""";
+    private static final String DELTAS = """
+        subscription($groupId: ID!) {
+          memberDeltas(groupId: $groupId) { id groupId version userId status amount memberCount agreedCount }
+        }""";
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private GroupPublisher groupPublisher;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void groupChangeArrivesAsOneFullSnapshot() throws Exception {
+        User leader = testData.user();
+        Group group = testData.group(leader, 3);
+        User member = testData.user();
+        groupService.joinGroup(group.getId(), member.getId());
+
+        List<Map<String, Object>> messages = new CopyOnWriteArrayList<>();
+        Disposable subscription = subscribe(SNAPSHOTS, group.getId(), "groupSnapshots").subscribe(messages::add);
+        try {
+            groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+            awaitTrue(() -> !messages.isEmpty());
+
+            Map<String, Object> snapshot = messages.get(0);
+            assertThat(snapshot).containsEntry("id", group.getId().toString())
+                .containsEntry("status", "ACTIVE")
+                .containsEntry("totalPeople", 3)
+                .containsEntry("memberCount", 2)
+                .containsEntry("agreedCount", 1)
+                .containsEntry("leader", Map.of("id", leader.getId().toString(), "name", leader.getName()));
+            assertThat(version(snapshot)).isPositive();
+            assertThat((List<?>) snapshot.get("members"))
+                .map(m -> (String) ((Map<?, ?>) ((Map<?, ?>) m).get("user")).get("username"))
+                .containsExactlyInAnyOrder(leader.getUsername(), member.getUsername());
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    @Test
+    void memberChangesArriveAsDeltasWithCountsAndGrowingVersions() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        User first = testData.user();
+        User second = testData.user();
+
+        List<Map<String, Object>> messages = new CopyOnWriteArrayList<>();
+        Disposable subscription = subscribe(DELTAS, group.getId(), "memberDeltas").subscribe(messages::add);
+        try {
+            groupService.joinGroup(group.getId(), first.getId());
+            groupService.joinGroup(group.getId(), second.getId());
+            groupService.updateMemberStatus(group.getId(), first.getId(), MemberStatus.AGREED);
+            awaitTrue(() -> !messages.isEmpty());
+
+            Map<String, Object> delta = messages.get(0);
+            assertThat(delta).containsOnlyKeys("id", "groupId", "version", "userId", "status", "amount", "memberCount", "agreedCount")
+                .containsEntry("groupId", group.getId().toString())
+                .containsEntry("userId", first.getId().toString())
+                .containsEntry("status", "AGREED")
+                .containsEntry("amount", 100.0)
+                .containsEntry("memberCount", 3)
+                .containsEntry("agreedCount", 2);
+
+            groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.AGREED);
+            awaitTrue(() -> messages.size() == 2);
+            assertThat(messages.get(1)).containsEntry("userId", second.getId().toString()).containsEntry("agreedCount", 3);
+            assertThat(version(messages.get(1))).isGreaterThan(version(delta));
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    // Built once per change: every subscriber receives the same instance
+    @Test
+    void subscribersShareOneSnapshotInstance() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        String groupId = group.getId().toString();
+        List<GroupSnapshot> first = new CopyOnWriteArrayList<>();
+        List<GroupSnapshot> second = new CopyOnWriteArrayList<>();
+        Disposable a = groupPublisher.getGroupSnapshotFlux(groupId, null).subscribe(first::add);
+        Disposable b = groupPublisher.getGroupSnapshotFlux(groupId, null).subscribe(second::add);
+        try {
+            groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+            awaitTrue(() -> !first.isEmpty() && !second.isEmpty());
+
+            assertThat(first.get(0)).isSameAs(second.get(0));
+        } finally {
+            a.dispose();
+            b.dispose();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<Map<String, Object>> subscribe(String document, Long groupId, String field) {
+        ExecutionGraphQlResponse response = graphQlService.execute(new DefaultExecutionGraphQlRequest(
+            document, null, Map.of("groupId", groupId), null, UUID.randomUUID().toString(), null)).block();
+        assertThat(response.getErrors()).isEmpty();
+        Publisher<ExecutionResult> results = response.getData();
+        return Flux.from(results).map(result -> {
+            assertThat(result.getErrors()).isEmpty();
+            return (Map<String, Object>) ((Map<String, Object>) result.getData()).get(field);
+        });
+    }
+
+    // Versions are cursors of the form epoch:sequence
+    private static long version(Map<String, Object> payload) {
+        String cursor = payload.get("version").toString();
+        return Long.parseLong(cursor.substring(cursor.lastIndexOf(':') + 1));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for delivery").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
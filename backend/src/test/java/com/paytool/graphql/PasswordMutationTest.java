@@ -0,0 +1,88 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.model.User;
+import com.paytool.repository.UserRepository;
+import com.paytool.security.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// createUser and login hop between applicationTaskExecutor and the hasher pool; results and
+// errors from every step must still reach the client
+@SpringBootTest
+@ActiveProfiles("test")
+class PasswordMutationTest {
+    private static final String LOGIN = """
+        mutation($username: String!, $password: String!) {
+          login(username: $username, password: $password) { token user { id } }
+        }""";
+    private static final String CREATE_USER = """
+        mutation($input: CreateUserInput!) { createUser(input: $input) { id username } }""";
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void loginReplacesAHashWithAnOlderCost() {
+        User user = testData.user();
+        user.setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+        userRepository.save(user);
+
+        ExecutionGraphQlResponse response = execute(LOGIN, Map.of("username", user.getUsername(), "password", "secret"));
+
+        assertThat(response.getErrors()).isEmpty();
+        String token = response.field("login.token").getValue();
+        assertThat(jwtTokenProvider.authenticate(token))
+            .hasValueSatisfying(principal -> assertThat(principal.getEmail()).isEqualTo(user.getEmail()));
+        String stored = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", stored)).isTrue();
+
+        // Already at the current cost: logging in again keeps the hash
+        assertThat(execute(LOGIN, Map.of("username", user.getUsername(), "password", "secret")).getErrors()).isEmpty();
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo(stored);
+    }
+
+    @Test
+    void failuresOfEachStepReachTheClient() {
+        String handle = UUID.randomUUID().toString();
+        Map<String, Object> input = Map.of(
+            "username", handle, "password", "secret", "email", handle + "@example.com", "name", handle);
+        ExecutionGraphQlResponse created = execute(CREATE_USER, Map.of("input", input));
+        assertThat(created.getErrors()).isEmpty();
+        assertThat(created.field("createUser.username").<String>getValue()).isEqualTo(handle);
+
+        assertThat(errorOf(execute(CREATE_USER, Map.of("input", input)))).isEqualTo("Username or email already exists");
+        assertThat(errorOf(execute(LOGIN, Map.of("username", "nobody-" + handle, "password", "secret"))))
+            .isEqualTo("User not found");
+        assertThat(errorOf(execute(LOGIN, Map.of("username", handle, "password", "wrong"))))
+            .isEqualTo("Invalid password");
+    }
+
+    private ExecutionGraphQlResponse execute(String document, Map<String, Object> variables) {
+        return graphQlService.execute(new DefaultExecutionGraphQlRequest(
+            document, null, variables, null, UUID.randomUUID().toString(), null)).block();
+    }
+
+    private static String errorOf(ExecutionGraphQlResponse response) {
+        assertThat(response.getErrors()).hasSize(1);
+        return response.getErrors().get(0).getMessage();
+    }
+}
@@ -0,0 +1,131 @@
+package com.paytool.graphql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+// Automatic persisted queries over HTTP, the way Apollo clients send them: hash only first, and
+// the full text together with the hash after a PersistedQueryNotFound
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class PersistedDocumentProviderTest {
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON = new ParameterizedTypeReference<>() {
+    };
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void unknownHashIsRegisteredByTheRetryAndHitAfterwards() throws Exception {
+        String query = uniqueQuery();
+        String hash = sha256(query);
+        double hits = persisted("hit");
+        double misses = persisted("not-found");
+
+        Map<String, Object> miss = post(null, hash);
+        assertThat(miss).doesNotContainKey("data");
+        assertThat(errors(miss)).singleElement().satisfies(error -> {
+            assertThat(error.get("message")).isEqualTo("PersistedQueryNotFound");
+            assertThat(error.get("extensions")).asInstanceOf(MAP).containsEntry("classification", "PersistedQueryNotFound");
+        });
+        assertThat(persisted("not-found")).isEqualTo(misses + 1);
+
+        Map<String, Object> registered = post(query, hash);
+        assertThat(registered).doesNotContainKey("errors");
+        assertThat(data(registered)).containsKey("hello");
+
+        assertThat(data(post(null, hash))).containsKey("hello");
+        // Some clients send a placeholder instead of leaving the query out
+        assertThat(data(post("PersistedQueryMarker", hash))).containsKey("hello");
+        assertThat(persisted("hit")).isEqualTo(hits + 2);
+        assertThat(persisted("not-found")).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void plainRequestAlsoRegistersItsHash() throws Exception {
+        String query = uniqueQuery();
+
+        assertThat(data(post(query, null))).containsKey("hello");
+
+        assertThat(data(post(null, sha256(query)))).containsKey("hello");
+    }
+
+    // A hash that does not belong to the text is refused and registers nothing under either hash
+    @Test
+    void mismatchedHashIsRefused() throws Exception {
+        String query = uniqueQuery();
+        String otherHash = sha256(uniqueQuery());
+
+        Map<String, Object> response = post(query, otherHash);
+
+        assertThat(response).doesNotContainKey("data");
+        assertThat(errors(response)).singleElement()
+            .satisfies(error -> assertThat(error.get("message")).isEqualTo("PersistedQueryIdInvalid"));
+        assertThat(errors(post(null, otherHash))).singleElement()
+            .satisfies(error -> assertThat(error.get("message")).isEqualTo("PersistedQueryNotFound"));
+        assertThat(errors(post(null, sha256(query)))).singleElement()
+            .satisfies(error -> assertThat(error.get("message")).isEqualTo("PersistedQueryNotFound"));
+    }
+
+    private Map<String, Object> post(String query, String hash) {
+        Map<String, Object> body = new HashMap<>();
+        if (query != null) {
+            body.put("query", query);
+        }
+        if (hash != null) {
+            body.put("extensions", Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Map<String, Object>> response =
+            restTemplate.exchange("/graphql", HttpMethod.POST, new HttpEntity<>(body, headers), JSON);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> response) {
+        return (Map<String, Object>) response.get("data");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> errors(Map<String, Object> response) {
+        return (List<Map<String, Object>>) response.get("errors");
+    }
+
+    private double persisted(String result) {
+        return meterRegistry.get("paytool.graphql.persisted").tag("result", result).counter().count();
+    }
+
+    // The document cache lives as long as the context, so every test brings its own text
+    private static String uniqueQuery() {
+        return "query Q" + UUID.randomUUID().toString().replace("-", "") + " { hello }";
+    }
+
+    private static String sha256(String query) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)));
+    }
+}
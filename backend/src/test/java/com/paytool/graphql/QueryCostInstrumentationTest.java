@@ -0,0 +1,110 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Operations are priced before any resolver runs; limits are the defaults, depth 8 and cost 5000
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryCostInstrumentationTest {
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TestData testData;
+
+    // members has no page argument, so it is priced at the default list size of 20
+    @Test
+    void costIsReportedUnderExtensions() {
+        Group group = testData.group(testData.user(), 3);
+
+        ExecutionGraphQlResponse response = execute("""
+            query($id: ID!) { group(id: $id) { id members { id } } }""", Map.of("id", group.getId()));
+
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(cost(response)).containsEntry("requested", 21L)
+            .containsEntry("maximum", 5000)
+            .containsEntry("depth", 3)
+            .containsEntry("maxDepth", 8);
+    }
+
+    // edges count "first" times, each node's members the default 20 times
+    @Test
+    void pageSizeMultipliesTheSubtree() {
+        ExecutionGraphQlResponse response = execute("""
+            { groupsConnection(first: 100) { edges { node { members { user { id } } } } } }""", Map.of());
+
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(cost(response)).containsEntry("requested", 4201L).containsEntry("depth", 6);
+    }
+
+    // settleUp carries a static cost of 20 for every settlement it returns
+    @Test
+    void staticFieldCostIsApplied() {
+        ExecutionGraphQlResponse response = execute("""
+            query($ids: [ID!]!) { settleUp(userIds: $ids) { amount } }""",
+            Map.of("ids", List.of(testData.user().getId(), testData.user().getId())));
+
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(cost(response)).containsEntry("requested", 400L);
+    }
+
+    @Test
+    void tooDeepOperationIsRefusedBeforeResolving() {
+        Group group = testData.group(testData.user(), 3);
+        double rejected = rejected();
+
+        ExecutionGraphQlResponse response = execute("""
+            query($id: ID!) {
+              group(id: $id) { members { group { members { group { members { group { members { user { id } } } } } } } } }
+            }""", Map.of("id", group.getId()));
+
+        assertThat(response.getExecutionResult().<Object>getData()).isNull();
+        assertThat(response.getErrors()).singleElement()
+            .satisfies(error -> assertThat(error.getMessage()).isEqualTo("Query depth 10 exceeds the limit of 8"));
+        assertThat(rejected()).isEqualTo(rejected + 1);
+    }
+
+    @Test
+    void tooExpensiveOperationIsRefusedBeforeResolving() {
+        double rejected = rejected();
+
+        ExecutionGraphQlResponse response = execute("""
+            { groupsConnection(first: 200) { edges { node { members { user { id } } } } } }""", Map.of());
+
+        assertThat(response.getExecutionResult().<Object>getData()).isNull();
+        assertThat(response.getErrors()).singleElement()
+            .satisfies(error -> assertThat(error.getMessage()).isEqualTo("Query cost 8401 exceeds the limit of 5000"));
+        assertThat(cost(response)).containsEntry("requested", 8401L);
+        assertThat(rejected()).isEqualTo(rejected + 1);
+    }
+
+    private ExecutionGraphQlResponse execute(String document, Map<String, Object> variables) {
+        return graphQlService.execute(new DefaultExecutionGraphQlRequest(
+            document, null, variables, null, UUID.randomUUID().toString(), null)).block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cost(ExecutionGraphQlResponse response) {
+        return (Map<String, Object>) response.getExtensions().get("cost");
+    }
+
+    private double rejected() {
+        return meterRegistry.get("paytool.graphql.query.rejected").counter().count();
+    }
+}
@@ -0,0 +1,105 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.graphql.StatementBudgetExtension.TracedOperations;
+import com.paytool.model.Group;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Relationship fields are batched per level, so the statement count must not grow with the page
+@SpringBootTest(properties = "paytool.graphql.trace.enabled=true")
+@ActiveProfiles("test")
+@ExtendWith(StatementBudgetExtension.class)
+class QueryResolverStatementBudgetTest {
+    @Autowired
+    private TestData testData;
+
+    private User leader;
+    private Group group;
+
+    @BeforeEach
+    void createRows() {
+        leader = testData.user();
+        group = testData.group(leader, 10);
+        for (int i = 0; i < 8; i++) {
+            User member = testData.user();
+            testData.member(group, member, MemberStatus.PENDING);
+            testData.transaction(leader, member, BigDecimal.TEN, TransactionStatus.COMPLETED);
+        }
+    }
+
+    @Test
+    @StatementBudget(4)
+    void groupWithMembersAndUsers(TracedOperations operations) {
+        Map<String, Object> data = operations.execute("""
+            query($id: ID!) {
+              group(id: $id) { id leader { username } members { status user { username } } }
+            }""", Map.of("id", group.getId()));
+
+        Map<?, ?> result = (Map<?, ?>) data.get("group");
+        assertThat((List<?>) result.get("members")).hasSize(9);
+    }
+
+    @Test
+    @StatementBudget(4)
+    void groupsPageWithMembers(TracedOperations operations) {
+        for (int i = 0; i < 5; i++) {
+            testData.group(testData.user(), 4);
+        }
+
+        Map<String, Object> data = operations.execute("""
+            {
+              groupsConnection(first: 10) {
+                edges { node { id leader { name } members { user { name } } } }
+                pageInfo { hasNextPage }
+              }
+            }""", Map.of());
+
+        Map<?, ?> connection = (Map<?, ?>) data.get("groupsConnection");
+        assertThat((List<?>) connection.get("edges")).isNotEmpty();
+    }
+
+    // The membership subquery and the leader join make this one statement however many groups there are
+    @Test
+    @StatementBudget(1)
+    void userGroupsWithLeaders(TracedOperations operations) {
+        User member = testData.user();
+        for (int i = 0; i < 6; i++) {
+            testData.member(testData.group(testData.user(), 4), member, MemberStatus.PENDING);
+        }
+
+        Map<String, Object> data = operations.execute("""
+            query($userId: ID!) { userGroups(userId: $userId) { id status leader { id name } } }""",
+            Map.of("userId", member.getId()));
+
+        assertThat((List<?>) data.get("userGroups")).hasSize(6);
+        assertThat(operations.lastStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @StatementBudget(1)
+    void transactionHistoryWithCounterparties(TracedOperations operations) {
+        Map<String, Object> data = operations.execute("""
+            query($userId: ID!) {
+              userTransactionsConnection(userId: $userId, first: 20) {
+                edges { node { amount sender { username } receiver { username email } } }
+              }
+            }""", Map.of("userId", leader.getId()));
+
+        Map<?, ?> connection = (Map<?, ?>) data.get("userTransactionsConnection");
+        assertThat((List<?>) connection.get("edges")).hasSize(8);
+    }
+}
@@ -0,0 +1,56 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.graphql.StatementBudgetExtension.TracedOperations;
+import com.paytool.model.Group;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The dashboard query issues the same statements whether the user is in 2 groups or 40
+@SpringBootTest(properties = "paytool.graphql.trace.enabled=true")
+@ActiveProfiles("test")
+@ExtendWith(StatementBudgetExtension.class)
+class RelationshipBatchingTest {
+    private static final String DASHBOARD = """
+        query($userId: ID!) {
+          userGroups(userId: $userId) { leader { name } members { status user { name } } }
+        }""";
+
+    @Autowired
+    private TestData testData;
+
+    @Test
+    @StatementBudget(5)
+    void statementCountStaysFlatAsGroupsGrow(TracedOperations operations) {
+        int small = statementsForDashboard(operations, 2, 3);
+        int large = statementsForDashboard(operations, 40, 12);
+
+        assertThat(small).isPositive();
+        assertThat(large).isEqualTo(small);
+    }
+
+    private int statementsForDashboard(TracedOperations operations, int groups, int membersPerGroup) {
+        User user = testData.user();
+        for (int g = 0; g < groups; g++) {
+            Group group = testData.group(testData.user(), membersPerGroup + 2);
+            testData.member(group, user, MemberStatus.PENDING);
+            for (int m = 0; m < membersPerGroup; m++) {
+                testData.member(group, testData.user(), MemberStatus.AGREED);
+            }
+        }
+
+        Map<String, Object> data = operations.execute(DASHBOARD, Map.of("userId", user.getId()));
+        assertThat((List<?>) data.get("userGroups")).hasSize(groups);
+        return operations.lastStatementCount();
+    }
+}
@@ -0,0 +1,16 @@
+package com.paytool.graphql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Most SQL statements each operation run through TracedOperations may issue in the annotated test
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+    int value();
+
+    // Shapes issued this many times in one operation fail the test as an N+1
+    int repeatThreshold() default 3;
+}
@@ -0,0 +1,100 @@
+package com.paytool.graphql;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Hands tests a TracedOperations that runs GraphQL operations with a RequestTrace attached, and
+// fails the test afterwards when any one operation issued more statements than its
+// @StatementBudget allows or repeated a statement shape. Needs paytool.graphql.trace.enabled=true
+// so statements reach the trace.
+public class StatementBudgetExtension implements ParameterResolver, AfterEachCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == TracedOperations.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        ExecutionGraphQlService service = SpringExtension.getApplicationContext(extensionContext)
+            .getBean(ExecutionGraphQlService.class);
+        return extensionContext.getStore(NAMESPACE)
+            .getOrComputeIfAbsent(TracedOperations.class, k -> new TracedOperations(service), TracedOperations.class);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        TracedOperations operations = context.getStore(NAMESPACE).remove(TracedOperations.class, TracedOperations.class);
+        if (operations == null) {
+            return;
+        }
+        StatementBudget budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), StatementBudget.class)
+            .orElseThrow(() -> new IllegalStateException(context.getDisplayName() + " traces operations without a @StatementBudget"));
+        RepeatedStatementDetector detector = new RepeatedStatementDetector(budget.repeatThreshold());
+        for (TracedOperation operation : operations.traced) {
+            try {
+                detector.assertWithin(operation.trace, budget.value());
+            } catch (AssertionError e) {
+                throw new AssertionError(e.getMessage() + " in " + operation.document, e);
+            }
+        }
+    }
+
+    public static final class TracedOperations {
+        private final ExecutionGraphQlService service;
+        private final List<TracedOperation> traced = new ArrayList<>();
+
+        private TracedOperations(ExecutionGraphQlService service) {
+            this.service = service;
+        }
+
+        // Statements from other threads are attributed through the GraphQL context, like for HTTP requests
+        public Map<String, Object> execute(String document, Map<String, Object> variables) {
+            RequestTrace trace = new RequestTrace();
+            DefaultExecutionGraphQlRequest request = new DefaultExecutionGraphQlRequest(
+                document, null, variables, null, UUID.randomUUID().toString(), null);
+            request.configureExecutionInput((input, builder) ->
+                builder.graphQLContext(Map.of(RequestTraceAccessor.KEY, trace)).build());
+
+            ExecutionGraphQlResponse response = RequestTrace.capture(trace, () -> service.execute(request).block());
+            traced.add(new TracedOperation(document, trace));
+            if (!response.getErrors().isEmpty()) {
+                throw new AssertionError("Operation failed: " + response.getErrors());
+            }
+            return response.getData();
+        }
+
+        // Statements issued by the most recent operation
+        public int lastStatementCount() {
+            return traced.get(traced.size() - 1).trace.statementCount();
+        }
+
+        // Distinct statement shapes of the most recent operation, literals collapsed to ?
+        public List<String> lastStatements() {
+            return new ArrayList<>(traced.get(traced.size() - 1).trace.statementsByShape().keySet());
+        }
+    }
+
+    private static final class TracedOperation {
+        private final String document;
+        private final RequestTrace trace;
+
+        private TracedOperation(String document, RequestTrace trace) {
+            this.document = document;
+            this.trace = trace;
+        }
+    }
+}
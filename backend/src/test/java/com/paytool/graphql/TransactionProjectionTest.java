@@ -0,0 +1,98 @@
+package com.paytool.graphql;
+
+import com.paytool.TestData;
+import com.paytool.graphql.StatementBudgetExtension.TracedOperations;
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Transaction fields go through TransactionViewRepository, which selects only the requested
+// columns: users is joined only for user fields beyond the id, and password is never read
+@SpringBootTest(properties = "paytool.graphql.trace.enabled=true")
+@ActiveProfiles("test")
+@ExtendWith(StatementBudgetExtension.class)
+class TransactionProjectionTest {
+    @Autowired
+    private TestData testData;
+
+    private User sender;
+    private Transaction transaction;
+
+    @BeforeEach
+    void createRows() {
+        sender = testData.user();
+        User receiver = testData.user();
+        transaction = testData.transaction(sender, receiver, BigDecimal.TEN, TransactionStatus.COMPLETED);
+        testData.transaction(receiver, sender, BigDecimal.ONE, TransactionStatus.PENDING);
+    }
+
+    @Test
+    @StatementBudget(1)
+    void scalarFieldsAreReadWithoutJoiningUsers(TracedOperations operations) {
+        Map<String, Object> data = operations.execute("""
+            query($userId: ID!) {
+              userTransactionsConnection(userId: $userId, first: 10) { edges { node { id amount sender { id } } } }
+            }""", Map.of("userId", sender.getId()));
+
+        assertThat(edges(data, "userTransactionsConnection")).hasSize(2);
+        assertThat(operations.lastStatements()).singleElement().satisfies(sql -> {
+            assertThat(sql).containsIgnoringCase("from transactions")
+                .containsIgnoringCase("amount")
+                .doesNotContainIgnoringCase("join")
+                .doesNotContainIgnoringCase("users")
+                .doesNotContainIgnoringCase("description")
+                .doesNotContainIgnoringCase("password");
+        });
+    }
+
+    @Test
+    @StatementBudget(1)
+    void userFieldsJoinUsersForThoseColumnsOnly(TracedOperations operations) {
+        Map<String, Object> data = operations.execute("""
+            query($userId: ID!) {
+              userTransactionsConnection(userId: $userId, first: 10) { edges { node { id sender { name } } } }
+            }""", Map.of("userId", sender.getId()));
+
+        assertThat(edges(data, "userTransactionsConnection")).hasSize(2);
+        assertThat(operations.lastStatements()).singleElement().satisfies(sql -> {
+            assertThat(sql).containsIgnoringCase("join users")
+                .containsIgnoringCase(".name")
+                .doesNotContainIgnoringCase("email")
+                .doesNotContainIgnoringCase("username")
+                .doesNotContainIgnoringCase("password")
+                .doesNotContainIgnoringCase("amount");
+        });
+    }
+
+    @Test
+    @StatementBudget(1)
+    void singleTransactionIsProjectedToo(TracedOperations operations) {
+        Map<String, Object> data = operations.execute("""
+            query($id: ID!) { transaction(id: $id) { status receiver { email } } }""",
+            Map.of("id", transaction.getId()));
+
+        assertThat(((Map<?, ?>) data.get("transaction")).get("status")).isEqualTo("COMPLETED");
+        assertThat(operations.lastStatements()).singleElement().satisfies(sql -> {
+            assertThat(sql).containsIgnoringCase("join users")
+                .containsIgnoringCase(".email")
+                .doesNotContainIgnoringCase("password")
+                .doesNotContainIgnoringCase(".name");
+        });
+    }
+
+    private static List<?> edges(Map<String, Object> data, String field) {
+        return (List<?>) ((Map<?, ?>) data.get(field)).get("edges");
+    }
+}
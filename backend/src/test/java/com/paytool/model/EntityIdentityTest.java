@@ -0,0 +1,116 @@
+package com.paytool.model;
+
+import com.paytool.TestData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Entities loaded by different persistence contexts, and uninitialized proxies, must be the same
+// element of a set; hashing or comparing an entity must never load its associations
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityIdentityTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void detachedCopiesOfOneRowAreEqual() {
+        User user = testData.user();
+        Group group = testData.group(user, 3);
+
+        User first = inNewContext(em -> em.find(User.class, user.getId()));
+        User second = inNewContext(em -> em.find(User.class, user.getId()));
+        Group firstGroup = inNewContext(em -> em.find(Group.class, group.getId()));
+        Group secondGroup = inNewContext(em -> em.find(Group.class, group.getId()));
+
+        assertThat(first).isNotSameAs(second).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(firstGroup).isNotSameAs(secondGroup).isEqualTo(secondGroup).hasSameHashCodeAs(secondGroup);
+        assertThat(new HashSet<>(Set.of(first))).contains(second);
+        assertThat(first).isNotEqualTo(testData.user());
+    }
+
+    // Only getId() is read from the argument, so comparing against a proxy leaves it unloaded
+    @Test
+    void loadedInstanceEqualsProxyWithoutInitializingIt() {
+        User user = testData.user();
+        Group group = testData.group(user, 3);
+        User loaded = inNewContext(em -> em.find(User.class, user.getId()));
+
+        inNewContext(em -> {
+            User proxy = em.getReference(User.class, user.getId());
+            Group groupProxy = em.getReference(Group.class, group.getId());
+
+            assertThat(loaded.equals(proxy)).isTrue();
+            assertThat(group.equals(groupProxy)).isTrue();
+            assertThat(Hibernate.isInitialized(proxy)).isFalse();
+            assertThat(Hibernate.isInitialized(groupProxy)).isFalse();
+
+            // A proxy hands equals and hashCode to its target, which loads it
+            assertThat(proxy).isEqualTo(loaded).hasSameHashCodeAs(loaded);
+            return null;
+        });
+    }
+
+    @Test
+    void hashingNeverLoadsAssociations() {
+        User leader = testData.user();
+        Group group = testData.group(leader, 3);
+        GroupMember member = testData.member(group, testData.user(), MemberStatus.PENDING);
+
+        inNewContext(em -> {
+            GroupMember found = em.find(GroupMember.class, member.getId());
+            Group foundGroup = found.getGroup();
+            assertThat(Hibernate.isInitialized(foundGroup)).isFalse();
+
+            assertThat(new HashSet<>(Set.of(found))).contains(member);
+            assertThat(found.toString()).contains("groupId=" + group.getId());
+            assertThat(Hibernate.isInitialized(foundGroup)).isFalse();
+            assertThat(Hibernate.isInitialized(found.getUser())).isFalse();
+            return null;
+        });
+    }
+
+    // The hash is a class constant, so a set built before the insert still finds the row after it
+    @Test
+    void transientEntityKeepsItsHashWhenSaved() {
+        User leader = testData.user();
+        GroupMember member = new GroupMember();
+        member.setUser(leader);
+        Set<GroupMember> members = new HashSet<>(Set.of(member));
+
+        assertThat(member).isNotEqualTo(new GroupMember());
+        Group group = testData.group(leader, 3);
+        member.setGroup(group);
+        member.setUser(testData.user());
+        member.setAmount(100.0);
+        GroupMember saved = inNewContext(em -> {
+            em.getTransaction().begin();
+            em.persist(member);
+            em.getTransaction().commit();
+            return member;
+        });
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(members).contains(saved);
+        GroupMember reloaded = inNewContext(em -> em.find(GroupMember.class, saved.getId()));
+        assertThat(reloaded).isEqualTo(saved);
+    }
+
+    private <T> T inNewContext(Function<EntityManager, T> work) {
+        try (EntityManager em = entityManagerFactory.createEntityManager()) {
+            return work.apply(em);
+        }
+    }
+}
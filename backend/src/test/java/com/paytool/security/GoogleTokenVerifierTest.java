@@ -0,0 +1,134 @@
+package com.paytool.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Tokens are signed with locally generated keys that a stand-in key source hands to the verifier
+class GoogleTokenVerifierTest {
+    private static final String CLIENT_ID = "paytool-test.apps.googleusercontent.com";
+
+    private final KeyPair current = rsaKeyPair();
+    private final AtomicReference<List<KeyPair>> published = new AtomicReference<>(List.of(current));
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final GoogleTokenVerifier verifier = new GoogleTokenVerifier(() -> {
+        fetches.incrementAndGet();
+        List<KeyPair> keys = published.get();
+        if (keys.isEmpty()) {
+            throw new IOException("certificate endpoint unavailable");
+        }
+        return new GoogleSigningKeys(keys.stream().map(KeyPair::getPublic).toList(), Instant.now().plusSeconds(3600));
+    }, CLIENT_ID, 300000, 0, 300);
+
+    @AfterEach
+    void stopRefresher() {
+        verifier.shutdown();
+    }
+
+    @Test
+    void acceptsTokenSignedWithAPublishedKey() throws Exception {
+        Optional<GoogleIdToken.Payload> payload = verifier.verify(token(current.getPrivate(), payload()));
+
+        assertThat(payload).isPresent();
+        assertThat(payload.get().getEmail()).isEqualTo("user@example.com");
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void rejectsTokensWithBadClaims() throws Exception {
+        GoogleIdToken.Payload otherAudience = payload().setAudience("someone-else.apps.googleusercontent.com");
+        GoogleIdToken.Payload otherIssuer = payload().setIssuer("https://evil.example.com");
+        long longAgo = Instant.now().minus(Duration.ofHours(2)).getEpochSecond();
+        GoogleIdToken.Payload expired = payload().setIssuedAtTimeSeconds(longAgo).setExpirationTimeSeconds(longAgo + 3600);
+
+        assertThat(verifier.verify(token(current.getPrivate(), otherAudience))).isEmpty();
+        assertThat(verifier.verify(token(current.getPrivate(), otherIssuer))).isEmpty();
+        assertThat(verifier.verify(token(current.getPrivate(), expired))).isEmpty();
+        assertThat(verifier.verify("not a token")).isEmpty();
+    }
+
+    // An unknown key triggers one background refresh; the token verifies once the new set is in
+    @Test
+    void picksUpRotatedKeyAfterRefresh() throws Exception {
+        assertThat(verifier.verify(token(current.getPrivate(), payload()))).isPresent();
+
+        KeyPair rotated = rsaKeyPair();
+        String signedWithRotated = token(rotated.getPrivate(), payload());
+        assertThat(verifier.verify(signedWithRotated)).isEmpty();
+
+        published.set(List.of(current, rotated));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (verifier.verify(signedWithRotated).isEmpty()) {
+            assertThat(System.nanoTime()).as("rotated key was never fetched").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void keepsPreviousKeysWhenRefreshFails() throws Exception {
+        assertThat(verifier.verify(token(current.getPrivate(), payload()))).isPresent();
+        published.set(List.of());
+
+        // The unknown key makes the verifier fetch again; the failure must not drop the keys it has
+        assertThat(verifier.verify(token(rsaKeyPair().getPrivate(), payload()))).isEmpty();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (fetches.get() < 2) {
+            assertThat(System.nanoTime()).as("refresh was never attempted").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+
+        assertThat(verifier.verify(token(current.getPrivate(), payload()))).isPresent();
+    }
+
+    @Test
+    void failsWhenNoKeysWereEverLoaded() throws Exception {
+        published.set(List.of());
+
+        assertThatThrownBy(() -> verifier.verify(token(current.getPrivate(), payload())))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static GoogleIdToken.Payload payload() {
+        long now = Instant.now().getEpochSecond();
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+        payload.setIssuer("https://accounts.google.com");
+        payload.setAudience(CLIENT_ID);
+        payload.setSubject("1234567890");
+        payload.setIssuedAtTimeSeconds(now);
+        payload.setExpirationTimeSeconds(now + 3600);
+        payload.setEmail("user@example.com");
+        return payload;
+    }
+
+    private static String token(PrivateKey key, GoogleIdToken.Payload payload) throws Exception {
+        JsonWebSignature.Header header = new JsonWebSignature.Header().setAlgorithm("RS256").setType("JWT");
+        return JsonWebSignature.signUsingRsaSha256(key, GsonFactory.getDefaultInstance(), header, payload);
+    }
+
+    private static KeyPair rsaKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.paytool.security;
+
+import com.paytool.dto.CreateUserInput;
+import com.paytool.graphql.MutationResolver;
+import com.paytool.model.AuthPayload;
+import com.paytool.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bearer tokens on HTTP requests, through the whole security chain. A path outside the permitted
+// list answers 404 to an authenticated caller and 401 to everyone else.
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTest {
+    private static final String PROTECTED = "/api/protected";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private MutationResolver mutationResolver;
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Test
+    void validTokenAuthenticatesTheRequest() throws Exception {
+        assertAuthenticated(token(secret, Instant.now().plus(Duration.ofHours(1))));
+    }
+
+    @Test
+    void expiredTokenIsIgnored() throws Exception {
+        assertAnonymous(request().header(HttpHeaders.AUTHORIZATION,
+            "Bearer " + token(secret, Instant.now().minus(Duration.ofMinutes(1)))));
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsIgnored() throws Exception {
+        String otherSecret = "another-secret-another-secret-another-secret-another-secret-0123456789";
+        assertAnonymous(request().header(HttpHeaders.AUTHORIZATION,
+            "Bearer " + token(otherSecret, Instant.now().plus(Duration.ofHours(1)))));
+    }
+
+    @Test
+    void missingOrMalformedHeaderLeavesTheRequestAnonymous() throws Exception {
+        String valid = token(secret, Instant.now().plus(Duration.ofHours(1)));
+        assertAnonymous(request());
+        assertAnonymous(request().header(HttpHeaders.AUTHORIZATION, "Bearer "));
+        assertAnonymous(request().header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"));
+        assertAnonymous(request().header(HttpHeaders.AUTHORIZATION, "Basic " + valid));
+    }
+
+    @Test
+    void loginIssuesATokenTheFilterAccepts() throws Exception {
+        String handle = UUID.randomUUID().toString();
+        CreateUserInput input = new CreateUserInput();
+        input.setUsername(handle);
+        input.setEmail(handle + "@example.com");
+        input.setName(handle);
+        input.setPassword("correct horse");
+        User user = mutationResolver.createUser(input).join();
+
+        AuthPayload payload = mutationResolver.login(handle, "correct horse").join();
+
+        assertThat(jwtTokenProvider.authenticate(payload.getToken()))
+            .hasValueSatisfying(principal -> assertThat(principal.getEmail()).isEqualTo(user.getEmail()));
+        assertAuthenticated(payload.getToken());
+    }
+
+    private void assertAuthenticated(String token) throws Exception {
+        mockMvc.perform(request().header(HttpHeaders.AUTHORIZATION, "Bearer " + token)).andExpect(status().isNotFound());
+    }
+
+    private void assertAnonymous(MockHttpServletRequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().isUnauthorized());
+    }
+
+    private static MockHttpServletRequestBuilder request() {
+        return get(PROTECTED);
+    }
+
+    private static String token(String secret, Instant expiresAt) {
+        return Jwts.builder()
+            .setSubject("someone@example.com")
+            .setIssuedAt(Date.from(expiresAt.minus(Duration.ofHours(2))))
+            .setExpiration(Date.from(expiresAt))
+            .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+            .compact();
+    }
+}
@@ -0,0 +1,155 @@
+package com.paytool.security;
+
+import graphql.ExecutionInput;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The connection_init token decides once per connection; every operation on it then carries the
+// principal in its GraphQL context until the token expires
+class JwtWebSocketInterceptorTest {
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret-test-secret-0123456789";
+    private static final URI ENDPOINT = URI.create("ws://localhost/subscriptions");
+
+    private JwtWebSocketInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", 100L);
+        provider.init();
+        interceptor = new JwtWebSocketInterceptor(provider);
+    }
+
+    @Test
+    void validTokenPutsThePrincipalInEveryOperation() {
+        Session session = connect(Map.of("authToken", token(SECRET, Instant.now().plus(Duration.ofHours(1)))));
+
+        JwtPrincipal first = principalOf(session);
+        assertThat(first).isNotNull();
+        assertThat(first.getEmail()).isEqualTo("someone@example.com");
+        assertThat(principalOf(session)).isEqualTo(first);
+    }
+
+    @Test
+    void expiredTokenLeavesTheConnectionAnonymous() {
+        Session session = connect(Map.of("authToken", token(SECRET, Instant.now().minus(Duration.ofMinutes(1)))));
+
+        assertThat(session.attributes).isEmpty();
+        assertThat(principalOf(session)).isNull();
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyLeavesTheConnectionAnonymous() {
+        String otherSecret = "another-secret-another-secret-another-secret-another-secret-0123456789";
+        Session session = connect(Map.of("authToken", token(otherSecret, Instant.now().plus(Duration.ofHours(1)))));
+
+        assertThat(session.attributes).isEmpty();
+        assertThat(principalOf(session)).isNull();
+    }
+
+    @Test
+    void missingOrMalformedTokenLeavesTheConnectionAnonymous() {
+        assertThat(principalOf(connect(Map.of()))).isNull();
+        assertThat(principalOf(connect(Map.of("authToken", "")))).isNull();
+        assertThat(principalOf(connect(Map.of("authToken", "not-a-token")))).isNull();
+        assertThat(principalOf(connect(Map.of("authToken", 42)))).isNull();
+    }
+
+    // The connection outlives the token: operations after the expiry run without the principal
+    @Test
+    void principalIsDroppedOnceTheTokenExpires() throws Exception {
+        Session session = connect(Map.of("authToken", token(SECRET, Instant.now().plus(Duration.ofSeconds(2)))));
+        JwtPrincipal principal = principalOf(session);
+        assertThat(principal).isNotNull();
+
+        while (!Instant.now().isAfter(principal.getExpiresAt())) {
+            Thread.sleep(50);
+        }
+        assertThat(principalOf(session)).isNull();
+    }
+
+    private Session connect(Map<String, Object> payload) {
+        Session session = new Session();
+        interceptor.handleConnectionInitialization(session, payload).block();
+        return session;
+    }
+
+    // Runs one operation on the connection and returns what the resolvers would find in the context
+    private JwtPrincipal principalOf(Session session) {
+        WebSocketGraphQlRequest request = new WebSocketGraphQlRequest(ENDPOINT, new HttpHeaders(),
+            Map.of("query", "{ __typename }"), UUID.randomUUID().toString(), null, session);
+        JwtPrincipal[] seen = new JwtPrincipal[1];
+        interceptor.intercept(request, next -> {
+            ExecutionInput input = next.toExecutionInput();
+            seen[0] = input.getGraphQLContext().get(JwtPrincipal.class);
+            return Mono.empty();
+        }).block();
+        return seen[0];
+    }
+
+    private static String token(String secret, Instant expiresAt) {
+        return Jwts.builder()
+            .setSubject("someone@example.com")
+            .setIssuedAt(Date.from(expiresAt.minus(Duration.ofHours(2))))
+            .setExpiration(Date.from(expiresAt))
+            .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+            .compact();
+    }
+
+    private static final class Session implements WebSocketSessionInfo {
+        final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public String getId() {
+            return "session";
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public URI getUri() {
+            return ENDPOINT;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Mono<Principal> getPrincipal() {
+            return Mono.empty();
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.dto.PairBalanceView;
+import com.paytool.model.Transaction;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import com.paytool.model.UserBalance;
+import com.paytool.repository.PairBalanceRepository;
+import com.paytool.repository.UserBalanceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The ledger follows COMPLETED transitions in both directions, and a rebuild from transaction
+// history puts back whatever the stored balances drifted to
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceLedgerTest {
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BalanceLedger balanceLedger;
+    @Autowired
+    private BalanceRebuildJob balanceRebuildJob;
+    @Autowired
+    private UserBalanceRepository userBalanceRepository;
+    @Autowired
+    private PairBalanceRepository pairBalanceRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void completingAppliesAndLeavingCompletedReverses() {
+        User alice = testData.user();
+        User bob = testData.user();
+        Transaction toBob = testData.transaction(alice, bob, new BigDecimal("30.00"), TransactionStatus.PENDING);
+        Transaction toAlice = testData.transaction(bob, alice, new BigDecimal("12.50"), TransactionStatus.PENDING);
+
+        transactionService.updateTransactionStatus(toBob.getId(), TransactionStatus.COMPLETED);
+        transactionService.updateTransactionStatus(toAlice.getId(), TransactionStatus.COMPLETED);
+        assertBalance(alice, "30.00", "12.50");
+        assertBalance(bob, "12.50", "30.00");
+        assertPair(alice, bob, "-17.50");
+        assertPair(bob, alice, "17.50");
+
+        // Completing twice is not a transition, so nothing is applied again
+        transactionService.updateTransactionStatus(toBob.getId(), TransactionStatus.COMPLETED);
+        assertBalance(alice, "30.00", "12.50");
+
+        transactionService.updateTransactionStatus(toBob.getId(), TransactionStatus.CANCELLED);
+        assertBalance(alice, "0", "12.50");
+        assertBalance(bob, "12.50", "0");
+        assertPair(alice, bob, "12.50");
+
+        transactionService.updateTransactionStatus(toAlice.getId(), TransactionStatus.FAILED);
+        assertBalance(alice, "0", "0");
+        assertBalance(bob, "0", "0");
+        assertPair(alice, bob, "0");
+    }
+
+    @Test
+    void pendingTransactionsNeverReachTheLedger() {
+        User alice = testData.user();
+        User bob = testData.user();
+        Transaction transaction = testData.transaction(alice, bob, new BigDecimal("5.00"), TransactionStatus.PENDING);
+
+        transactionService.updateTransactionStatus(transaction.getId(), TransactionStatus.FAILED);
+
+        assertBalance(alice, "0", "0");
+        assertThat(balanceLedger.pairBalances(alice.getId())).isEmpty();
+    }
+
+    @Test
+    void rebuildRestoresCorruptedBalances() {
+        User alice = testData.user();
+        User bob = testData.user();
+        User carol = testData.user();
+        User bystander = testData.user();
+        complete(testData.transaction(alice, bob, new BigDecimal("40.00"), TransactionStatus.PENDING));
+        complete(testData.transaction(carol, alice, new BigDecimal("15.00"), TransactionStatus.PENDING));
+        // Never completed, so the rebuild must leave it out as well
+        testData.transaction(bob, carol, new BigDecimal("99.00"), TransactionStatus.PENDING);
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            userBalanceRepository.add(alice.getId(), new BigDecimal("1000"), BigDecimal.ZERO);
+            userBalanceRepository.deleteRange(bob.getId(), bob.getId() + 1);
+            userBalanceRepository.add(bystander.getId(), BigDecimal.ONE, BigDecimal.ONE);
+            pairBalanceRepository.add(Math.min(alice.getId(), carol.getId()), Math.max(alice.getId(), carol.getId()),
+                new BigDecimal("-7"));
+            pairBalanceRepository.add(Math.min(bob.getId(), carol.getId()), Math.max(bob.getId(), carol.getId()),
+                new BigDecimal("3"));
+        });
+        long versionBefore = balanceLedger.getVersion();
+
+        assertThat(balanceRebuildJob.rebuild()).isPositive();
+
+        assertBalance(alice, "40.00", "15.00");
+        assertBalance(bob, "0", "40.00");
+        assertBalance(carol, "15.00", "0");
+        assertThat(userBalanceRepository.findById(bystander.getId())).isEmpty();
+        assertPair(alice, bob, "-40.00");
+        assertPair(alice, carol, "15.00");
+        assertThat(balanceLedger.pairBalances(bob.getId()))
+            .extracting(PairBalanceView::getCounterpartyId)
+            .containsExactly(alice.getId());
+        // Cached results derived from the old balances are no longer served
+        assertThat(balanceLedger.getVersion()).isGreaterThan(versionBefore);
+    }
+
+    private void complete(Transaction transaction) {
+        transactionService.updateTransactionStatus(transaction.getId(), TransactionStatus.COMPLETED);
+    }
+
+    private void assertBalance(User user, String sent, String received) {
+        UserBalance balance = balanceLedger.balance(user.getId());
+        assertThat(balance.getTotalSent()).as("total_sent").isEqualByComparingTo(sent);
+        assertThat(balance.getTotalReceived()).as("total_received").isEqualByComparingTo(received);
+    }
+
+    // net is what user received from the counterparty minus what they sent to them
+    private void assertPair(User user, User counterparty, String net) {
+        List<PairBalanceView> pairs = balanceLedger.pairBalances(user.getId());
+        assertThat(pairs).filteredOn(view -> view.getCounterpartyId().equals(counterparty.getId()))
+            .singleElement()
+            .satisfies(view -> assertThat(view.getNet()).isEqualByComparingTo(net));
+    }
+}
@@ -0,0 +1,75 @@
+package com.paytool.service;
+
+import com.paytool.repository.CardNumberBlockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Small blocks force frequent refills, and two allocators stand in for two nodes sharing the table
+@SpringBootTest(properties = "paytool.cards.block-size=10")
+@ActiveProfiles("test")
+class CardNumberAllocatorConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 500;
+
+    @Autowired
+    private CardNumberAllocator allocator;
+    @Autowired
+    private CardNumberBlockRepository blockRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentCallersOnTwoNodesNeverGetTheSameNumber() throws Exception {
+        CardNumberAllocator otherNode = new CardNumberAllocator(blockRepository, transactionManager, "900000", 10);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        List<String> duplicates = new ArrayList<>();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                CardNumberAllocator node = t % 2 == 0 ? allocator : otherNode;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        String number = node.next();
+                        if (!numbers.add(number)) {
+                            synchronized (duplicates) {
+                                duplicates.add(number);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(duplicates).isEmpty();
+        assertThat(numbers).hasSize(THREADS * PER_THREAD);
+        for (String number : numbers) {
+            assertThat(number).hasSize(16).startsWith("900000");
+            assertThat(number.charAt(15) - '0').isEqualTo(CardNumberAllocator.luhnCheckDigit(number.substring(0, 15)));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.dto.UpdateUserInput;
+import com.paytool.graphql.MutationResolver;
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupRepository;
+import com.paytool.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every read goes through a warm second-level cache entry, and must still see the write before it
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityCacheStalenessTest {
+    private static final String MEMBERS_ROLE = Group.class.getName() + ".members";
+
+    @Autowired
+    private MutationResolver mutationResolver;
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCacheEvictor entityCacheEvictor;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void updatedUserIsReadBackAfterUpdateUser() {
+        User user = testData.user();
+        userRepository.findById(user.getId()).orElseThrow();
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isTrue();
+
+        UpdateUserInput input = new UpdateUserInput();
+        input.setName("renamed");
+        input.setEmail("renamed-" + user.getId() + "@example.com");
+        mutationResolver.updateUser(user.getId().toString(), input).join();
+
+        User read = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(read.getName()).isEqualTo("renamed");
+        assertThat(read.getEmail()).isEqualTo("renamed-" + user.getId() + "@example.com");
+    }
+
+    @Test
+    void updatedStatusIsReadBackAfterUpdateGroupStatus() {
+        Group group = testData.group(testData.user(), 3);
+        groupRepository.findById(group.getId()).orElseThrow();
+        assertThat(entityManagerFactory.getCache().contains(Group.class, group.getId())).isTrue();
+
+        groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getStatus()).isEqualTo(GroupStatus.ACTIVE);
+        groupService.updateGroupStatus(group.getId(), GroupStatus.CANCELLED);
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getStatus()).isEqualTo(GroupStatus.CANCELLED);
+    }
+
+    // The seat counter is bumped by a native statement that Hibernate does not track itself
+    @Test
+    void joinIsVisibleInCachedCounterAndMemberList() {
+        Group group = testData.group(testData.user(), 3);
+        assertThat(memberUserIds(group.getId())).hasSize(1);
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getJoinedCount()).isEqualTo(1);
+
+        User joiner = testData.user();
+        groupService.joinGroup(group.getId(), joiner.getId());
+
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getJoinedCount()).isEqualTo(2);
+        assertThat(memberUserIds(group.getId())).hasSize(2).contains(joiner.getId());
+    }
+
+    // A reader that loads the member list between the eviction and the commit caches the old list;
+    // the second eviction when the transaction ends drops it again
+    @Test
+    void memberListCachedDuringTheTransactionIsEvictedAgainAtCommit() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        GroupMember member = testData.member(group, testData.user(), MemberStatus.PENDING);
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        memberUserIds(group.getId());
+        assertThat(cache.containsCollection(MEMBERS_ROLE, group.getId())).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityCacheEvictor.evictMember(group.getId(), member.getId());
+            assertThat(cache.containsCollection(MEMBERS_ROLE, group.getId())).isFalse();
+
+            CompletableFuture.runAsync(() -> memberUserIds(group.getId())).join();
+            assertThat(cache.containsCollection(MEMBERS_ROLE, group.getId())).as("cached by the racing reader").isTrue();
+        });
+
+        assertThat(cache.containsCollection(MEMBERS_ROLE, group.getId())).isFalse();
+        assertThat(cache.containsEntity(GroupMember.class, member.getId())).isFalse();
+    }
+
+    private List<Long> memberUserIds(Long groupId) {
+        return transactionTemplate.execute(status -> groupRepository.findById(groupId).orElseThrow()
+            .getMembers().stream().map(GroupMember::getUser).map(User::getId).toList());
+    }
+}
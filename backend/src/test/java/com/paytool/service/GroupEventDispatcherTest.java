@@ -0,0 +1,137 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import com.paytool.model.GroupMember;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Subscribers must only see committed changes, and a burst of group changes must reach them as one snapshot
+@SpringBootTest(properties = "paytool.subscriptions.coalesce-window-ms=300")
+@ActiveProfiles("test")
+class GroupEventDispatcherTest {
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private GroupPublisher groupPublisher;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void groupChangeIsPublishedOnlyAfterCommit() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        List<Group> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = groupPublisher.getGroupStatusFlux(group.getId().toString()).subscribe(received::add);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+                sleep(500);
+                assertThat(received).as("published before commit").isEmpty();
+            });
+
+            awaitTrue(() -> !received.isEmpty());
+            assertThat(received).singleElement().extracting(Group::getStatus).isEqualTo(GroupStatus.ACTIVE);
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    @Test
+    void memberChangeIsPublishedOnlyAfterCommit() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        User user = testData.user();
+        testData.member(group, user, MemberStatus.PENDING);
+        List<GroupMember> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = groupPublisher.getMemberStatusFlux(group.getId().toString()).subscribe(received::add);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                groupService.updateMemberStatus(group.getId(), user.getId(), MemberStatus.AGREED);
+                assertThat(received).as("published before commit").isEmpty();
+            });
+
+            assertThat(received).singleElement().extracting(GroupMember::getStatus).isEqualTo(MemberStatus.AGREED);
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    @Test
+    void rolledBackChangesAreNeverPublished() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        User user = testData.user();
+        testData.member(group, user, MemberStatus.PENDING);
+        String groupId = group.getId().toString();
+        List<Object> received = new CopyOnWriteArrayList<>();
+        Disposable groups = groupPublisher.getGroupStatusFlux(groupId).subscribe(received::add);
+        Disposable members = groupPublisher.getMemberStatusFlux(groupId).subscribe(received::add);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+                groupService.updateMemberStatus(group.getId(), user.getId(), MemberStatus.AGREED);
+                status.setRollbackOnly();
+            });
+
+            // Well past the coalescing window
+            Thread.sleep(1000);
+            assertThat(received).isEmpty();
+        } finally {
+            groups.dispose();
+            members.dispose();
+        }
+    }
+
+    // Changes committed within one window collapse into a single snapshot of the final state
+    @Test
+    void burstOfGroupChangesIsCoalescedIntoOneSnapshot() throws Exception {
+        Group group = testData.group(testData.user(), 3);
+        List<Group> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = groupPublisher.getGroupStatusFlux(group.getId().toString()).subscribe(received::add);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+                groupService.updateGroupStatus(group.getId(), GroupStatus.PENDING);
+            });
+            groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+            groupService.updateGroupStatus(group.getId(), GroupStatus.COMPLETED);
+
+            awaitTrue(() -> !received.isEmpty());
+            Thread.sleep(600);
+            assertThat(received).singleElement().extracting(Group::getStatus).isEqualTo(GroupStatus.COMPLETED);
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for delivery").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
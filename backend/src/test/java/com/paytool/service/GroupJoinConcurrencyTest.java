@@ -0,0 +1,116 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.exception.CustomException;
+import com.paytool.model.Group;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupMemberRepository;
+import com.paytool.repository.GroupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class GroupJoinConcurrencyTest {
+    private static final int JOINERS = 300;
+
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+    @Autowired
+    private SchemaBackfill schemaBackfill;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void concurrentJoinersNeverOverfillTheGroup() throws Exception {
+        Group group = testData.group(testData.user(), 50);
+
+        Outcome outcome = joinConcurrently(group, JOINERS);
+
+        // The leader holds the first seat
+        assertThat(outcome.admitted.get()).isEqualTo(49);
+        assertThat(outcome.rejections.keySet()).isSubsetOf("Group is full", "Group is busy, please try again");
+        assertSeats(group, 50);
+    }
+
+    @Test
+    void groupsFromBeforeTheCounterAreRecountedBeforeAdmission() throws Exception {
+        Group group = testData.group(testData.user(), 20);
+        for (int i = 0; i < 14; i++) {
+            testData.member(group, testData.user(), MemberStatus.PENDING);
+        }
+        // What ddl-auto leaves behind for a group that predates joined_count
+        jdbcTemplate.update("UPDATE payment_groups SET joined_count = 0 WHERE id = ?", group.getId());
+
+        schemaBackfill.afterSingletonsInstantiated();
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getJoinedCount()).isEqualTo(15);
+
+        Outcome outcome = joinConcurrently(group, 100);
+        assertThat(outcome.admitted.get()).isEqualTo(5);
+        assertSeats(group, 20);
+    }
+
+    private Outcome joinConcurrently(Group group, int joiners) throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < joiners; i++) {
+            users.add(testData.user());
+        }
+
+        Outcome outcome = new Outcome();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User user : users) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        groupService.joinGroup(group.getId(), user.getId());
+                        outcome.admitted.incrementAndGet();
+                    } catch (CustomException e) {
+                        outcome.rejections.merge(e.getMessage(), 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private void assertSeats(Group group, int seats) {
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getJoinedCount()).isEqualTo(seats);
+        assertThat(groupMemberRepository.findByGroup(group)).hasSize(seats);
+    }
+
+    private static final class Outcome {
+        private final AtomicInteger admitted = new AtomicInteger();
+        private final ConcurrentHashMap<String, Integer> rejections = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,257 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.dto.GroupSnapshot;
+import com.paytool.dto.MemberDelta;
+import com.paytool.model.Group;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Resume tests keep one other subscriber connected, so the group's history is retained while the
+// resuming client is away; a history of three deltas makes a gap easy to create
+@SpringBootTest(properties = {
+    "paytool.subscriptions.history-size=3",
+    "paytool.subscriptions.coalesce-window-ms=0"
+})
+@ActiveProfiles("test")
+class GroupPublisherTest {
+    @Autowired
+    private GroupPublisher groupPublisher;
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TestData testData;
+
+    private Group group;
+    private String groupId;
+    private List<User> members;
+
+    @BeforeEach
+    void createGroup() {
+        group = testData.group(testData.user(), 4);
+        groupId = group.getId().toString();
+        members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = testData.user();
+            groupService.joinGroup(group.getId(), user.getId());
+            members.add(user);
+        }
+    }
+
+    @Test
+    void gaugesTrackSinksAndSubscribersPerStream() {
+        Disposable first = groupPublisher.getGroupStatusFlux("901").subscribe();
+        Disposable second = groupPublisher.getGroupStatusFlux("901").subscribe();
+        Disposable otherGroup = groupPublisher.getGroupStatusFlux("902").subscribe();
+        Disposable members = groupPublisher.getMemberStatusFlux("901").subscribe();
+
+        assertThat(gauge("paytool.subscriptions.sinks", "group")).isEqualTo(2);
+        assertThat(gauge("paytool.subscriptions.active", "group")).isEqualTo(3);
+        assertThat(gauge("paytool.subscriptions.sinks", "member")).isEqualTo(1);
+
+        first.dispose();
+        otherGroup.dispose();
+        assertThat(gauge("paytool.subscriptions.sinks", "group")).isEqualTo(1);
+        assertThat(gauge("paytool.subscriptions.active", "group")).isEqualTo(1);
+
+        second.dispose();
+        members.dispose();
+        assertThat(gauge("paytool.subscriptions.sinks", "group")).isZero();
+        assertThat(gauge("paytool.subscriptions.active", "group")).isZero();
+        assertThat(gauge("paytool.subscriptions.sinks", "member")).isZero();
+        assertThat(gauge("paytool.subscriptions.buffered", "group")).isZero();
+    }
+
+    @Test
+    void resumingWithinTheBufferReplaysExactlyTheMissedDeltas() throws Exception {
+        Disposable companion = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe();
+        try {
+            List<MemberDelta> before = new CopyOnWriteArrayList<>();
+            Disposable client = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe(before::add);
+            setStatus(0, MemberStatus.AGREED);
+            awaitTrue(() -> before.size() == 1);
+            client.dispose();
+
+            setStatus(1, MemberStatus.AGREED);
+            setStatus(2, MemberStatus.AGREED);
+
+            List<MemberDelta> resumed = new CopyOnWriteArrayList<>();
+            client = groupPublisher.getMemberDeltaFlux(groupId, cursor(before.get(0))).subscribe(resumed::add);
+            setStatus(0, MemberStatus.DISAGREED);
+            awaitTrue(() -> resumed.size() == 3);
+            Thread.sleep(200);
+            client.dispose();
+
+            assertThat(resumed).extracting(MemberDelta::getUserId, MemberDelta::getStatus).containsExactly(
+                change(1, MemberStatus.AGREED), change(2, MemberStatus.AGREED), change(0, MemberStatus.DISAGREED));
+            assertThat(resumed).extracting(MemberDelta::getVersion).isSorted().doesNotHaveDuplicates();
+            assertThat(resumed.get(0).getVersion()).isGreaterThan(before.get(0).getVersion());
+        } finally {
+            companion.dispose();
+        }
+    }
+
+    @Test
+    void resumingWithNoGapReplaysNothing() throws Exception {
+        Disposable companion = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe();
+        try {
+            List<MemberDelta> before = new CopyOnWriteArrayList<>();
+            Disposable client = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe(before::add);
+            setStatus(0, MemberStatus.AGREED);
+            awaitTrue(() -> before.size() == 1);
+            client.dispose();
+
+            List<MemberDelta> resumed = new CopyOnWriteArrayList<>();
+            client = groupPublisher.getMemberDeltaFlux(groupId, cursor(before.get(0))).subscribe(resumed::add);
+            Thread.sleep(200);
+            assertThat(resumed).isEmpty();
+
+            setStatus(1, MemberStatus.AGREED);
+            awaitTrue(() -> resumed.size() == 1);
+            client.dispose();
+            assertThat(resumed.get(0).getUserId()).isEqualTo(members.get(1).getId());
+        } finally {
+            companion.dispose();
+        }
+    }
+
+    // More changes than the history holds went by: the client gets every member's current state instead
+    @Test
+    void resumingAcrossAGapSendsTheCurrentState() throws Exception {
+        Disposable companion = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe();
+        try {
+            List<MemberDelta> before = new CopyOnWriteArrayList<>();
+            Disposable client = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe(before::add);
+            setStatus(0, MemberStatus.AGREED);
+            awaitTrue(() -> before.size() == 1);
+            client.dispose();
+
+            setStatus(1, MemberStatus.AGREED);
+            setStatus(2, MemberStatus.AGREED);
+            setStatus(1, MemberStatus.DISAGREED);
+            setStatus(2, MemberStatus.DISAGREED);
+
+            List<MemberDelta> resumed = new CopyOnWriteArrayList<>();
+            client = groupPublisher.getMemberDeltaFlux(groupId, cursor(before.get(0))).subscribe(resumed::add);
+            client.dispose();
+
+            assertCurrentState(resumed, before.get(0).getVersion());
+        } finally {
+            companion.dispose();
+        }
+    }
+
+    // Cursors issued by another node, an earlier run of this one, or never issued at all
+    @Test
+    void foreignOrMalformedCursorsGetTheCurrentState() throws Exception {
+        Disposable companion = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe();
+        try {
+            List<MemberDelta> live = new CopyOnWriteArrayList<>();
+            Disposable client = groupPublisher.getMemberDeltaFlux(groupId, null).subscribe(live::add);
+            setStatus(0, MemberStatus.AGREED);
+            awaitTrue(() -> live.size() == 1);
+            client.dispose();
+            long version = live.get(0).getVersion();
+
+            for (String cursor : List.of("another-node:" + version, "another-node:0", Long.toString(version),
+                    groupPublisher.cursor(version + 1000), "garbage")) {
+                List<MemberDelta> resumed = new CopyOnWriteArrayList<>();
+                groupPublisher.getMemberDeltaFlux(groupId, cursor).subscribe(resumed::add).dispose();
+                assertCurrentState(resumed, version - 1);
+            }
+        } finally {
+            companion.dispose();
+        }
+    }
+
+    @Test
+    void snapshotsResumeFromTheLatestOrAFreshRead() throws Exception {
+        List<GroupSnapshot> delivered = new CopyOnWriteArrayList<>();
+        Disposable companion = groupPublisher.getGroupSnapshotFlux(groupId, null).subscribe(delivered::add);
+        try {
+            List<GroupSnapshot> live = new CopyOnWriteArrayList<>();
+            Disposable client = groupPublisher.getGroupSnapshotFlux(groupId, null).subscribe(live::add);
+            groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+            awaitTrue(() -> live.size() == 1);
+            client.dispose();
+            GroupSnapshot seen = live.get(0);
+
+            List<GroupSnapshot> upToDate = new CopyOnWriteArrayList<>();
+            groupPublisher.getGroupSnapshotFlux(groupId, cursor(seen)).subscribe(upToDate::add).dispose();
+            assertThat(upToDate).isEmpty();
+
+            groupService.updateGroupStatus(group.getId(), GroupStatus.CANCELLED);
+            awaitTrue(() -> delivered.size() == 2);
+            List<GroupSnapshot> missed = new CopyOnWriteArrayList<>();
+            groupPublisher.getGroupSnapshotFlux(groupId, cursor(seen)).subscribe(missed::add).dispose();
+            assertThat(missed).singleElement().extracting(GroupSnapshot::getStatus).isEqualTo(GroupStatus.CANCELLED);
+
+            List<GroupSnapshot> foreign = new CopyOnWriteArrayList<>();
+            groupPublisher.getGroupSnapshotFlux(groupId, "another-node:" + seen.getVersion()).subscribe(foreign::add).dispose();
+            assertThat(foreign).singleElement().satisfies(snapshot -> {
+                assertThat(snapshot.getStatus()).isEqualTo(GroupStatus.CANCELLED);
+                assertThat(snapshot.getMemberCount()).isEqualTo(4);
+            });
+        } finally {
+            companion.dispose();
+        }
+    }
+
+    private void assertCurrentState(List<MemberDelta> resumed, long olderThan) {
+        assertThat(resumed).hasSize(4);
+        assertThat(resumed).extracting(MemberDelta::getUserId)
+            .containsAll(members.stream().map(User::getId).toList());
+        assertThat(resumed).allSatisfy(delta -> {
+            assertThat(delta.getVersion()).isGreaterThan(olderThan).isEqualTo(resumed.get(0).getVersion());
+            assertThat(delta.getMemberCount()).isEqualTo(4);
+        });
+    }
+
+    private void setStatus(int member, MemberStatus status) {
+        groupService.updateMemberStatus(group.getId(), members.get(member).getId(), status);
+    }
+
+    private Tuple change(int member, MemberStatus status) {
+        return tuple(members.get(member).getId(), status);
+    }
+
+    private String cursor(MemberDelta delta) {
+        return groupPublisher.cursor(delta.getVersion());
+    }
+
+    private String cursor(GroupSnapshot snapshot) {
+        return groupPublisher.cursor(snapshot.getVersion());
+    }
+
+    private double gauge(String name, String stream) {
+        return meterRegistry.get(name).tag("stream", stream).gauge().value();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for delivery").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
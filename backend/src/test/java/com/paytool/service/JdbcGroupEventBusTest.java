@@ -0,0 +1,153 @@
+package com.paytool.service;
+
+import com.paytool.PayToolApplication;
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import com.paytool.model.GroupEventType;
+import com.paytool.model.GroupMember;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupEventRepository;
+import com.paytool.repository.GroupRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application contexts share one H2 database and talk only through the group_events outbox
+class JdbcGroupEventBusTest {
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void memberChangeOnOneNodeReachesMemberSubscribersOnBoth() throws Exception {
+        TestData testData = nodeA.getBean(TestData.class);
+        Group group = testData.group(testData.user(), 5);
+        User member = testData.user();
+        testData.member(group, member, MemberStatus.PENDING);
+
+        List<GroupMember> onA = new CopyOnWriteArrayList<>();
+        List<GroupMember> onB = new CopyOnWriteArrayList<>();
+        String groupId = group.getId().toString();
+        Disposable subscriptionA = nodeA.getBean(GroupPublisher.class).getMemberStatusFlux(groupId).subscribe(onA::add);
+        Disposable subscriptionB = nodeB.getBean(GroupPublisher.class).getMemberStatusFlux(groupId).subscribe(onB::add);
+        try {
+            nodeA.getBean(GroupService.class).updateMemberStatus(group.getId(), member.getId(), MemberStatus.AGREED);
+
+            awaitTrue(() -> !onB.isEmpty());
+            assertThat(onB.get(0).getStatus()).isEqualTo(MemberStatus.AGREED);
+            // Several more polls go by; node A must not hear its own event back, and B only once
+            Thread.sleep(500);
+            assertThat(onA).hasSize(1);
+            assertThat(onB).hasSize(1);
+        } finally {
+            subscriptionA.dispose();
+            subscriptionB.dispose();
+        }
+    }
+
+    @Test
+    void statusChangeOnOneNodeReachesGroupSubscribersOnTheOther() throws Exception {
+        TestData testData = nodeB.getBean(TestData.class);
+        Group group = testData.group(testData.user(), 3);
+
+        List<Group> onA = new CopyOnWriteArrayList<>();
+        Disposable subscription = nodeA.getBean(GroupPublisher.class)
+            .getGroupStatusFlux(group.getId().toString()).subscribe(onA::add);
+        try {
+            nodeB.getBean(GroupService.class).updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+
+            awaitTrue(() -> onA.stream().anyMatch(g -> g.getStatus() == GroupStatus.ACTIVE));
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    // Node A holds the group in its second-level cache and has no subscribers for it
+    @Test
+    void statusChangeOnOneNodeEvictsTheOtherNodesCachedGroup() throws Exception {
+        TestData testData = nodeB.getBean(TestData.class);
+        Group group = testData.group(testData.user(), 3);
+        GroupRepository groupsOnA = nodeA.getBean(GroupRepository.class);
+        assertThat(groupsOnA.findById(group.getId()).orElseThrow().getStatus()).isEqualTo(GroupStatus.PENDING);
+
+        nodeB.getBean(GroupService.class).updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+
+        awaitTrue(() -> groupsOnA.findById(group.getId()).orElseThrow().getStatus() == GroupStatus.ACTIVE);
+    }
+
+    // The outbox row is part of the change's transaction: it exists as soon as the change commits,
+    // without waiting for a flush, and a rolled-back change leaves none behind
+    @Test
+    void eventIsWrittenInTheTransactionThatMadeTheChange() {
+        TestData testData = nodeA.getBean(TestData.class);
+        Group group = testData.group(testData.user(), 3);
+        GroupEventRepository events = nodeA.getBean(GroupEventRepository.class);
+        GroupService groupService = nodeA.getBean(GroupService.class);
+        TransactionTemplate transaction = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class));
+        long before = events.count();
+
+        transaction.executeWithoutResult(status -> {
+            groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+            status.setRollbackOnly();
+        });
+        assertThat(events.count()).isEqualTo(before);
+
+        groupService.updateGroupStatus(group.getId(), GroupStatus.ACTIVE);
+        assertThat(events.findByIdGreaterThanOrderByIdAsc(0L, Pageable.unpaged()))
+            .filteredOn(event -> event.getGroupId().equals(group.getId()))
+            .singleElement()
+            .satisfies(event -> {
+                assertThat(event.getType()).isEqualTo(GroupEventType.GROUP);
+                assertThat(event.getOriginNode()).isEqualTo("node-a");
+                assertThat(event.getCreatedAt()).isNotNull();
+            });
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(PayToolApplication.class)
+            .profiles("test")
+            // Arguments, because default properties lose to application.yml
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:paytool-events;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--server.port=0",
+                "--paytool.events.bus=jdbc",
+                "--paytool.events.node-id=" + nodeId,
+                "--paytool.events.poll-interval-ms=50",
+                "--paytool.events.settle-ms=0");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for delivery").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.paytool.service;
+
+import com.paytool.exception.CustomException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void shutdown() {
+        hasher.shutdown();
+    }
+
+    // One thread busy and one request queued: the next one is shed at once instead of waiting
+    @Test
+    void fullQueueShedsRequestsRightAway() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        hasher = new PasswordHasher(new BlockingEncoder(started, release), meterRegistry, 1, 1);
+
+        CompletableFuture<String> running = hasher.encode("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = hasher.encode("second");
+        assertThat(gauge("paytool.passwords.active")).isEqualTo(1);
+        assertThat(gauge("paytool.passwords.queue")).isEqualTo(1);
+
+        assertThatThrownBy(() -> hasher.encode("third"))
+            .isInstanceOf(CustomException.class)
+            .hasMessageContaining("busy");
+        assertThatThrownBy(() -> hasher.verify("third", "hash", true)).isInstanceOf(CustomException.class);
+        assertThat(meterRegistry.get("paytool.passwords.rejected").counter().count()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:second");
+        // Once the backlog drains, requests are accepted again
+        assertThat(hasher.encode("fourth").get(5, TimeUnit.SECONDS)).isEqualTo("hashed:fourth");
+    }
+
+    @Test
+    void olderCostIsRehashedWithTheCurrentOne() throws Exception {
+        BCryptPasswordEncoder current = new BCryptPasswordEncoder(6);
+        hasher = new PasswordHasher(current, meterRegistry, 1, 4);
+        String older = new BCryptPasswordEncoder(4).encode("secret");
+
+        PasswordHasher.Verification upgraded = hasher.verify("secret", older, true).get(5, TimeUnit.SECONDS);
+        assertThat(upgraded.isMatched()).isTrue();
+        assertThat(upgraded.getUpgradedHash()).startsWith("$2a$06$");
+        assertThat(current.matches("secret", upgraded.getUpgradedHash())).isTrue();
+
+        // A hash at the current cost, a wrong password or rehashing turned off leave the hash alone
+        PasswordHasher.Verification again = hasher.verify("secret", upgraded.getUpgradedHash(), true).get(5, TimeUnit.SECONDS);
+        assertThat(again.isMatched()).isTrue();
+        assertThat(again.getUpgradedHash()).isNull();
+        PasswordHasher.Verification wrong = hasher.verify("guess", older, true).get(5, TimeUnit.SECONDS);
+        assertThat(wrong.isMatched()).isFalse();
+        assertThat(wrong.getUpgradedHash()).isNull();
+        assertThat(hasher.verify("secret", older, false).get(5, TimeUnit.SECONDS).getUpgradedHash()).isNull();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    // Holds the hashing thread until released, so the queue can be filled deterministically
+    private static final class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import com.paytool.model.GroupStatus;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.PaymentCard;
+import com.paytool.model.User;
+import com.paytool.repository.GroupRepository;
+import com.paytool.repository.PaymentCardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The agreed/joined counters follow every transition, and with auto-issue the card is issued once
+@SpringBootTest(properties = "paytool.groups.auto-issue-card=true")
+@ActiveProfiles("test")
+class PaymentCardIssueTest {
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private PaymentCardRepository paymentCardRepository;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void countersFollowJoinsAndStatusTransitions() {
+        Group group = testData.group(testData.user(), 4);
+        User first = testData.user();
+        User second = testData.user();
+
+        groupService.joinGroup(group.getId(), first.getId());
+        groupService.joinGroup(group.getId(), second.getId());
+        assertCounters(group, 3, 1);
+
+        groupService.updateMemberStatus(group.getId(), first.getId(), MemberStatus.AGREED);
+        assertCounters(group, 3, 2);
+        // Repeating a status is not a transition
+        groupService.updateMemberStatus(group.getId(), first.getId(), MemberStatus.AGREED);
+        assertCounters(group, 3, 2);
+        groupService.updateMemberStatus(group.getId(), first.getId(), MemberStatus.DISAGREED);
+        assertCounters(group, 3, 1);
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.DISAGREED);
+        assertCounters(group, 3, 1);
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.AGREED);
+        assertCounters(group, 3, 2);
+        // Not every seat is taken, so nothing is issued yet
+        assertThat(cards(group)).isEmpty();
+    }
+
+    @Test
+    void lastAgreementIssuesExactlyOneCard() {
+        Group group = testData.group(testData.user(), 3);
+        User first = testData.user();
+        User second = testData.user();
+        groupService.joinGroup(group.getId(), first.getId());
+        groupService.joinGroup(group.getId(), second.getId());
+
+        groupService.updateMemberStatus(group.getId(), first.getId(), MemberStatus.AGREED);
+        assertThat(cards(group)).isEmpty();
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.AGREED);
+
+        List<PaymentCard> issued = cards(group);
+        assertThat(issued).hasSize(1);
+        assertThat(groupRepository.findById(group.getId()).orElseThrow().getStatus()).isEqualTo(GroupStatus.COMPLETED);
+
+        // Agreeing again, leaving and coming back, or asking for the card never issues another one
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.AGREED);
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.DISAGREED);
+        groupService.updateMemberStatus(group.getId(), second.getId(), MemberStatus.AGREED);
+        assertThat(groupService.generatePaymentCard(group.getId()).getId()).isEqualTo(issued.get(0).getId());
+        assertThat(cards(group)).hasSize(1);
+    }
+
+    @Test
+    void concurrentLastAgreementsIssueOneCard() throws Exception {
+        Group group = testData.group(testData.user(), 9);
+        List<User> members = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            User user = testData.user();
+            groupService.joinGroup(group.getId(), user.getId());
+            members.add(user);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(members.size() * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User member : members) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return groupService.updateMemberStatus(group.getId(), member.getId(), MemberStatus.AGREED);
+                }));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return groupService.generatePaymentCard(group.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    // generatePaymentCard refuses while agreements are still missing
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertCounters(group, 9, 9);
+        assertThat(cards(group)).hasSize(1);
+    }
+
+    private void assertCounters(Group group, int joined, int agreed) {
+        Group current = groupRepository.findById(group.getId()).orElseThrow();
+        assertThat(current.getJoinedCount()).as("joined_count").isEqualTo(joined);
+        assertThat(current.getAgreedCount()).as("agreed_count").isEqualTo(agreed);
+    }
+
+    private List<PaymentCard> cards(Group group) {
+        return paymentCardRepository.findByGroup(group);
+    }
+}
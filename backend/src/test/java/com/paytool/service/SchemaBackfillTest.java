@@ -0,0 +1,84 @@
+package com.paytool.service;
+
+import com.paytool.TestData;
+import com.paytool.model.Group;
+import com.paytool.model.MemberStatus;
+import com.paytool.model.PaymentCard;
+import com.paytool.model.TransactionStatus;
+import com.paytool.model.User;
+import com.paytool.repository.GroupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows that ddl-auto migrated are put into the state the changelogs' data steps would leave
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaBackfillTest {
+    @Autowired
+    private SchemaBackfill schemaBackfill;
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private BalanceLedger balanceLedger;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void legacyGroupWithEveryoneAgreedCanIssueItsCard() {
+        Group group = testData.group(testData.user(), 3);
+        testData.member(group, testData.user(), MemberStatus.AGREED);
+        testData.member(group, testData.user(), MemberStatus.AGREED);
+        jdbcTemplate.update("UPDATE payment_groups SET joined_count = 0, agreed_count = 0 WHERE id = ?", group.getId());
+
+        schemaBackfill.afterSingletonsInstantiated();
+
+        Group backfilled = groupRepository.findById(group.getId()).orElseThrow();
+        assertThat(backfilled.getJoinedCount()).isEqualTo(3);
+        assertThat(backfilled.getAgreedCount()).isEqualTo(3);
+        PaymentCard card = groupService.generatePaymentCard(group.getId());
+        assertThat(card.getCardNumber()).hasSize(16);
+    }
+
+    @Test
+    void groupsCreatedAfterTheMigrationAreLeftAlone() {
+        Group group = testData.group(testData.user(), 4);
+        testData.member(group, testData.user(), MemberStatus.PENDING);
+        // A leader that withdrew its agreement legitimately leaves agreed_count at 0
+        jdbcTemplate.update("UPDATE group_members SET status = 'DISAGREED' WHERE group_id = ?", group.getId());
+        jdbcTemplate.update("UPDATE payment_groups SET joined_count = 2, agreed_count = 0 WHERE id = ?", group.getId());
+
+        schemaBackfill.afterSingletonsInstantiated();
+
+        Group unchanged = groupRepository.findById(group.getId()).orElseThrow();
+        assertThat(unchanged.getJoinedCount()).isEqualTo(2);
+        assertThat(unchanged.getAgreedCount()).isZero();
+    }
+
+    @Test
+    void emptyLedgerIsRebuiltFromCompletedHistory() {
+        User alice = testData.user();
+        User bob = testData.user();
+        testData.transaction(alice, bob, new BigDecimal("30.00"), TransactionStatus.COMPLETED);
+        testData.transaction(bob, alice, new BigDecimal("12.50"), TransactionStatus.COMPLETED);
+        testData.transaction(alice, bob, new BigDecimal("99.00"), TransactionStatus.PENDING);
+        jdbcTemplate.update("DELETE FROM user_balances");
+        jdbcTemplate.update("DELETE FROM pair_balances");
+
+        schemaBackfill.afterSingletonsInstantiated();
+
+        assertThat(balanceLedger.balance(alice.getId()).getTotalSent()).isEqualByComparingTo("30.00");
+        assertThat(balanceLedger.balance(alice.getId()).getTotalReceived()).isEqualByComparingTo("12.50");
+        assertThat(balanceLedger.pairBalances(bob.getId()).get(0).getNet()).isEqualByComparingTo("17.50");
+    }
+}
@@ -0,0 +1,87 @@
+package com.paytool.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Property checks over random transaction graphs: every plan must clear exactly the balances it
+// was given. Seeds are fixed so a failure names the graph that produced it.
+class SettlementEngineTest {
+    private static final int GRAPHS = 500;
+
+    @Test
+    void settlementsConserveEveryBalance() {
+        for (int seed = 0; seed < GRAPHS; seed++) {
+            long[] balances = randomBalances(new Random(seed));
+            SettlementEngine.Plan plan = SettlementEngine.settle(balances);
+
+            long[] after = balances.clone();
+            for (int t = 0; t < plan.size; t++) {
+                after[plan.from[t]] -= plan.cents[t];
+                after[plan.to[t]] += plan.cents[t];
+            }
+            assertThat(after).as("seed %d", seed).containsOnly(0L);
+        }
+    }
+
+    @Test
+    void transfersOnlyRunFromDebtorsToCreditors() {
+        for (int seed = 0; seed < GRAPHS; seed++) {
+            long[] balances = randomBalances(new Random(seed));
+            SettlementEngine.Plan plan = SettlementEngine.settle(balances);
+
+            for (int t = 0; t < plan.size; t++) {
+                assertThat(plan.cents[t]).as("seed %d", seed).isPositive();
+                assertThat(balances[plan.from[t]]).as("seed %d", seed).isPositive();
+                assertThat(balances[plan.to[t]]).as("seed %d", seed).isNegative();
+            }
+        }
+    }
+
+    @Test
+    void transferCountStaysBelowTheNumberOfUnsettledUsers() {
+        for (int seed = 0; seed < GRAPHS; seed++) {
+            long[] balances = randomBalances(new Random(seed));
+            int unsettled = 0;
+            for (long balance : balances) {
+                if (balance != 0) {
+                    unsettled++;
+                }
+            }
+            assertThat(SettlementEngine.settle(balances).size).as("seed %d", seed)
+                .isLessThanOrEqualTo(Math.max(0, unsettled - 1));
+        }
+    }
+
+    @Test
+    void settledUsersNeedNoTransfers() {
+        assertThat(SettlementEngine.settle(new long[0]).size).isZero();
+        assertThat(SettlementEngine.settle(new long[] {0, 0, 0}).size).isZero();
+    }
+
+    @Test
+    void balancesThatDoNotCancelOutAreRejected() {
+        assertThatThrownBy(() -> SettlementEngine.settle(new long[] {500, -499}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Balances produced by random transfers, so they always sum to zero; some graphs use
+    // amounts near the largest ledger values and some leave users untouched
+    private static long[] randomBalances(Random random) {
+        int users = 1 + random.nextInt(300);
+        long[] balances = new long[users];
+        int transfers = random.nextInt(users * 3 + 1);
+        long maxCents = random.nextBoolean() ? 100_000 : 1_000_000_000_000L;
+        for (int t = 0; t < transfers; t++) {
+            int sender = random.nextInt(users);
+            int receiver = random.nextInt(users);
+            long cents = 1 + (long) (random.nextDouble() * maxCents);
+            balances[sender] -= cents;
+            balances[receiver] += cents;
+        }
+        return balances;
+    }
+}
@@ -0,0 +1,75 @@
+package com.paytool.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many threads emit to one key at once; before emissions were serialized, the sink rejected
+// overlapping calls with FAIL_NON_SERIALIZED and those events were lost
+class SinkRegistryStressTest {
+    private static final int PRODUCERS = 16;
+    private static final int PER_PRODUCER = 20_000;
+    private static final int SUBSCRIBERS = 3;
+
+    @Test
+    void concurrentEmittersLoseNothingAndKeepPerThreadOrder() throws Exception {
+        // ERROR terminates a subscriber that overflows, so a drop anywhere would show up as a failure
+        SinkRegistry<Integer> registry = new SinkRegistry<>(PRODUCERS * PER_PRODUCER, OverflowPolicy.ERROR);
+        List<Queue<Integer>> received = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int s = 0; s < SUBSCRIBERS; s++) {
+            Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+            received.add(queue);
+            subscriptions.add(registry.subscribe("group").subscribe(queue::add, failure::set));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < PER_PRODUCER; i++) {
+                        assertThat(registry.emit("group", producer * PER_PRODUCER + i)).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(failure.get()).isNull();
+        for (Queue<Integer> queue : received) {
+            assertThat(queue).hasSize(PRODUCERS * PER_PRODUCER);
+            int[] last = new int[PRODUCERS];
+            Arrays.fill(last, -1);
+            for (int value : queue) {
+                int producer = value / PER_PRODUCER;
+                assertThat(value % PER_PRODUCER).isEqualTo(last[producer] + 1);
+                last[producer] = value % PER_PRODUCER;
+            }
+        }
+        subscriptions.forEach(Disposable::dispose);
+        assertThat(registry.liveSinks()).isZero();
+    }
+}
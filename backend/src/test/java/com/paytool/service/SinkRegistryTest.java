@@ -0,0 +1,99 @@
+package com.paytool.service;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SinkRegistryTest {
+    @Test
+    void sinkIsRemovedWhenTheLastSubscriberCancels() {
+        SinkRegistry<String> registry = new SinkRegistry<>(4, OverflowPolicy.DROP_OLDEST);
+        assertThat(registry.emit("group", "nobody listens")).isFalse();
+        assertThat(registry.liveSinks()).isZero();
+
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        Disposable a = registry.subscribe("group").subscribe(first::add);
+        Disposable b = registry.subscribe("group").subscribe(second::add);
+        Disposable other = registry.subscribe("other").subscribe();
+        assertThat(registry.liveSinks()).isEqualTo(2);
+        assertThat(registry.subscriberCount("group")).isEqualTo(2);
+        assertThat(registry.totalSubscribers()).isEqualTo(3);
+
+        assertThat(registry.emit("group", "one")).isTrue();
+        a.dispose();
+        assertThat(registry.liveSinks()).isEqualTo(2);
+        assertThat(registry.subscriberCount("group")).isEqualTo(1);
+        assertThat(registry.emit("group", "two")).isTrue();
+
+        b.dispose();
+        assertThat(registry.subscriberCount("group")).isZero();
+        assertThat(registry.liveSinks()).isEqualTo(1);
+        assertThat(registry.totalSubscribers()).isEqualTo(1);
+        assertThat(registry.emit("group", "three")).isFalse();
+        assertThat(first).containsExactly("one");
+        assertThat(second).containsExactly("one", "two");
+        assertThat(registry.emittedElements()).isEqualTo(3);
+
+        other.dispose();
+        assertThat(registry.liveSinks()).isZero();
+        assertThat(registry.totalSubscribers()).isZero();
+    }
+
+    // A subscriber that comes back after the sink was dropped gets a fresh one, not the completed sink
+    @Test
+    void resubscribingAfterEvictionCreatesANewSink() {
+        SinkRegistry<String> registry = new SinkRegistry<>(4, OverflowPolicy.DROP_OLDEST);
+        AtomicBoolean completed = new AtomicBoolean();
+        Disposable first = registry.subscribe("group").subscribe(value -> { }, error -> { }, () -> completed.set(true));
+        first.dispose();
+
+        List<String> received = new ArrayList<>();
+        Disposable second = registry.subscribe("group").subscribe(received::add);
+        assertThat(registry.emit("group", "after")).isTrue();
+
+        assertThat(received).containsExactly("after");
+        assertThat(completed).isFalse();
+        second.dispose();
+        assertThat(registry.liveSinks()).isZero();
+    }
+
+    // Elements still queued for a subscriber stop counting as buffered once it cancels
+    @Test
+    void bufferedCountFollowsPendingElementsAndDropsOnCancel() {
+        SinkRegistry<Integer> registry = new SinkRegistry<>(3, OverflowPolicy.DROP_OLDEST);
+        List<Integer> received = new ArrayList<>();
+        BaseSubscriber<Integer> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+            }
+
+            @Override
+            protected void hookOnNext(Integer value) {
+                received.add(value);
+            }
+        };
+        registry.subscribe("group").subscribe(slow);
+
+        for (int i = 0; i < 5; i++) {
+            registry.emit("group", i);
+        }
+        // Two were dropped as the oldest, three wait for demand
+        assertThat(registry.bufferedElements()).isEqualTo(3);
+
+        slow.request(1);
+        assertThat(received).containsExactly(2);
+        assertThat(registry.bufferedElements()).isEqualTo(2);
+
+        slow.dispose();
+        assertThat(registry.bufferedElements()).isZero();
+        assertThat(registry.liveSinks()).isZero();
+    }
+}
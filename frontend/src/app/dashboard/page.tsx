@@ -15,6 +15,7 @@ import { toast } from "sonner";
 import { useMemberSubscription, useGroupSubscription } from "@/hooks/useSubscription";
 import { useUserStore } from '@/store/userStore';
 import { useRouter, useSearchParams } from "next/navigation";
+import { postGraphQL } from "@/lib/graphql";
 
 function GroupListItem({ group, selected, onClick }: any) {
   return (
@@ -112,25 +113,16 @@ function GroupDetail({ group, userId, setGroup }: any) {
       console.log("📤 Sending status update via GraphQL mutation");
 
       // Send the update to the server
-      const response = await fetch("http://localhost:8080/graphql", {
-        method: "POST",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({
-          query: `mutation UpdateMemberStatus($groupId: ID!, $userId: ID!, $status: MemberStatus!) {
+      const data = await postGraphQL(`mutation UpdateMemberStatus($groupId: ID!, $userId: ID!, $status: MemberStatus!) {
             updateMemberStatus(groupId: $groupId, userId: $userId, status: $status) {
               id
               status
             }
-          }`,
-          variables: {
+          }`, {
             groupId: group.id,
             userId: userId,
             status,
-          },
-        }),
-      });
-
-      const data = await response.json();
+          });
       if (data.errors) {
         throw new Error(data.errors[0].message);
       }
@@ -145,13 +137,7 @@ function GroupDetail({ group, userId, setGroup }: any) {
       if (allAgreed) {
         console.log("Updating group status to ACTIVE");
         // Update group status to ACTIVE
-        const updateGroupResponse = await fetch(
-          "http://localhost:8080/graphql",
-          {
-            method: "POST",
-            headers: { "Content-Type": "application/json" },
-            body: JSON.stringify({
-              query: `mutation UpdateGroupStatus($groupId: ID!, $status: GroupStatus!) {
+        const updateGroupData = await postGraphQL(`mutation UpdateGroupStatus($groupId: ID!, $status: GroupStatus!) {
                 updateGroupStatus(groupId: $groupId, status: $status) {
                   id
                   status
@@ -161,16 +147,10 @@ function GroupDetail({ group, userId, setGroup }: any) {
                   leader { id name username }
                   members { id amount status user { id name username } }
                 }
-              }`,
-              variables: {
+              }`, {
                 groupId: group.id,
                 status: "ACTIVE",
-              },
-            }),
-          }
-        );
-
-        const updateGroupData = await updateGroupResponse.json();
+              });
         console.log("Group status update response:", updateGroupData);
 
         if (updateGroupData.errors) {
@@ -200,11 +180,7 @@ function GroupDetail({ group, userId, setGroup }: any) {
     setGeneratingCard(true);
     try {
       console.log("Generating card for group:", group.id);
-      const response = await fetch("http://localhost:8080/graphql", {
-        method: "POST",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({
-          query: `mutation GeneratePaymentCard($groupId: ID!) {
+      const data = await postGraphQL(`mutation GeneratePaymentCard($groupId: ID!) {
             generatePaymentCard(groupId: $groupId) {
               id
               cardNumber
@@ -212,14 +188,9 @@ function GroupDetail({ group, userId, setGroup }: any) {
               status
               createdAt
             }
-          }`,
-          variables: {
+          }`, {
             groupId: group.id,
-          },
-        }),
-      });
-
-      const data = await response.json();
+          });
       console.log("Response data:", data);
 
       // ✅ 处理错误情况
@@ -431,11 +402,7 @@ export default function DashboardPage() {
 
   useEffect(() => {
     if (!userId) return;
-    fetch("http://localhost:8080/graphql", {
-      method: "POST",
-      headers: { "Content-Type": "application/json" },
-      body: JSON.stringify({
-        query: `query UserGroups($userId: ID!) {
+    postGraphQL(`query UserGroups($userId: ID!) {
           userGroups(userId: $userId) {
             id
             description
@@ -444,12 +411,7 @@ export default function DashboardPage() {
             leader { id name username }
             members { id amount status user { id name username } }
           }
-        }`,
-        variables: { userId },
-      }),
-    })
-      .then((res) => res.json())
-      .then((data) => {
+        }`, { userId }).then((data) => {
         setGroups(data.data.userGroups || []);
       });
   }, [userId]);
@@ -480,11 +442,7 @@ export default function DashboardPage() {
 
   useEffect(() => {
     if (!selectedGroupId) return;
-    fetch("http://localhost:8080/graphql", {
-      method: "POST",
-      headers: { "Content-Type": "application/json" },
-      body: JSON.stringify({
-        query: `query Group($id: ID!) {
+    postGraphQL(`query Group($id: ID!) {
           group(id: $id) {
             id
             description
@@ -493,12 +451,7 @@ export default function DashboardPage() {
             leader { id name username }
             members { id amount status user { id name username } }
           }
-        }`,
-        variables: { id: selectedGroupId },
-      }),
-    })
-      .then((res) => res.json())
-      .then((data) => setSelectedGroup(data.data.group));
+        }`, { id: selectedGroupId }).then((data) => setSelectedGroup(data.data.group));
   }, [selectedGroupId]);
 
   const clearSearch = useCallback(() => {
@@ -22,12 +22,15 @@ interface GroupMember {
 }
 
 interface GroupSubscriptionResponse {
-  groupStatusChanged: {
+  groupSnapshots: {
     id: string;
+    version: number;
     status: string;
     description: string;
     totalAmount: number;
     totalPeople: number;
+    memberCount: number;
+    agreedCount: number;
     leader: {
       id: string;
       name: string;
@@ -47,15 +50,15 @@ interface GroupSubscriptionResponse {
 }
 
 interface MemberSubscriptionResponse {
-  memberStatusChanged: {
+  memberDeltas: {
     id: string;
+    groupId: string;
+    version: number;
+    userId: string;
     status: string;
     amount: number;
-    user: {
-      id: string;
-      name: string;
-      username: string;
-    };
+    memberCount: number;
+    agreedCount: number;
   };
 }
 
@@ -138,13 +141,16 @@ export const useGroupSubscription = (groupId: string) => {
     console.log("Setting up group subscription for:", groupId);
     const subscription = client.subscribe<GroupSubscriptionResponse>(
       {
-        query: `subscription GroupStatusChanged($groupId: ID!) {
-          groupStatusChanged(groupId: $groupId) {
+        query: `subscription GroupSnapshots($groupId: ID!) {
+          groupSnapshots(groupId: $groupId) {
             id
+            version
             status
             description
             totalAmount
             totalPeople
+            memberCount
+            agreedCount
             leader { id name username }
             members { id amount status user { id name username } }
           }
@@ -154,12 +160,9 @@ export const useGroupSubscription = (groupId: string) => {
       {
         next: (data: ExecutionResult<GroupSubscriptionResponse>) => {
           console.log("Group status update received:", data);
-          if (data.data?.groupStatusChanged) {
-            console.log(
-              "Updating group state with:",
-              data.data.groupStatusChanged
-            );
-            setGroup(data.data.groupStatusChanged);
+          if (data.data?.groupSnapshots) {
+            console.log("Updating group state with:", data.data.groupSnapshots);
+            setGroup(data.data.groupSnapshots);
           }
         },
         error: (err: Error) => {
@@ -213,12 +216,16 @@ export const useMemberSubscription = (groupId: string) => {
     console.log("Setting up member subscription for:", groupId);
     const subscription = client.subscribe<MemberSubscriptionResponse>(
       {
-        query: `subscription MemberStatusChanged($groupId: ID!) {
-          memberStatusChanged(groupId: $groupId) {
+        query: `subscription MemberDeltas($groupId: ID!) {
+          memberDeltas(groupId: $groupId) {
             id
+            groupId
+            version
+            userId
             status
             amount
-            user { id name username }
+            memberCount
+            agreedCount
           }
         }`,
         variables: { groupId },
@@ -226,8 +233,8 @@ export const useMemberSubscription = (groupId: string) => {
       {
         next: (data: ExecutionResult<MemberSubscriptionResponse>) => {
           console.log("Member status update received:", data);
-          if (data.data?.memberStatusChanged) {
-            setMember(data.data.memberStatusChanged);
+          if (data.data?.memberDeltas) {
+            setMember(data.data.memberDeltas);
           }
         },
         error: (err: Error) => {
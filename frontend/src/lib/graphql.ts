@@ -0,0 +1,49 @@
+const GRAPHQL_URL = "http://localhost:8080/graphql";
+
+// Placeholder the server treats as "no query text", see PersistedDocumentProvider
+const PERSISTED_QUERY_MARKER = "PersistedQueryMarker";
+
+const hashes = new Map<string, Promise<string>>();
+
+async function sha256(text: string): Promise<string> {
+  const digest = await crypto.subtle.digest("SHA-256", new TextEncoder().encode(text));
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, "0"))
+    .join("");
+}
+
+function hashOf(query: string): Promise<string> {
+  let hash = hashes.get(query);
+  if (!hash) {
+    hash = sha256(query);
+    hashes.set(query, hash);
+  }
+  return hash;
+}
+
+async function post(body: Record<string, unknown>) {
+  const response = await fetch(GRAPHQL_URL, {
+    method: "POST",
+    headers: { "Content-Type": "application/json" },
+    body: JSON.stringify(body),
+  });
+  return response.json();
+}
+
+// Automatic persisted queries: send only the hash first, and the full text once
+// if the server does not know it yet. Resolves to the GraphQL response body.
+export async function postGraphQL(query: string, variables?: Record<string, unknown>) {
+  if (typeof crypto === "undefined" || !crypto.subtle) {
+    return post({ query, variables });
+  }
+  const persistedQuery = { version: 1, sha256Hash: await hashOf(query) };
+  const data = await post({
+    query: PERSISTED_QUERY_MARKER,
+    variables,
+    extensions: { persistedQuery },
+  });
+  if (data.errors?.some((e: { message?: string }) => e.message === "PersistedQueryNotFound")) {
+    return post({ query, variables, extensions: { persistedQuery } });
+  }
+  return data;
+}